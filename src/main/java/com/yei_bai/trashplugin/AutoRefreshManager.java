@@ -8,8 +8,15 @@ import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * 公共垃圾桶物品到期管理
+ * 每个物品从丢弃起按 item-ttl / material-ttl 单独到期，每秒检查一次，只移除到期的物品
+ */
 public class AutoRefreshManager {
 
+    private static final long CHECK_INTERVAL_TICKS = 20L; // 每秒检查一次
+    private static final long BROADCAST_INTERVAL_MILLIS = 60_000L; // 到期广播的最短间隔，期间到期的物品合并为一条
+
     private final JavaPlugin plugin;
     private final ConfigManager config;
     private final DataManager dataManager;
@@ -20,6 +27,8 @@ public class AutoRefreshManager {
     private int playerCount = 0;
     private final boolean isFolia;
     private final AtomicInteger executionCount = new AtomicInteger(0);
+    private final AtomicInteger pendingExpired = new AtomicInteger(0); // 尚未广播的到期物品数量
+    private volatile long lastBroadcast = 0L;
 
     public AutoRefreshManager(JavaPlugin plugin, ConfigManager config, DataManager dataManager) {
         this.plugin = plugin;
@@ -38,7 +47,7 @@ public class AutoRefreshManager {
 
         if (config.isDebug()) {
             plugin.getLogger().info("自动刷新管理器初始化完成，使用" + (isFolia ? "Folia" : "传统") + "调度器");
-            plugin.getLogger().info("自动刷新间隔: " + config.getAutoRefresh() + "秒");
+            plugin.getLogger().info("物品保留时间: " + config.getItemTtl() + "秒");
         }
     }
 
@@ -53,8 +62,7 @@ public class AutoRefreshManager {
             return;
         }
 
-        int autoRefresh = config.getAutoRefresh();
-        if (playerCount > 0 && autoRefresh > 0 && !isRunning) {
+        if (playerCount > 0 && config.isItemExpiryEnabled() && !isRunning) {
             startRefreshTask();
         }
     }
@@ -81,21 +89,20 @@ public class AutoRefreshManager {
             return;
         }
 
-        int interval = config.getAutoRefresh();
-        if (interval <= 0) {
-            return; // 自动刷新已禁用
+        if (!config.isItemExpiryEnabled()) {
+            return; // 所有物品永久保留
         }
 
         try {
             if (isFolia) {
-                startRefreshTaskFolia(interval);
+                startRefreshTaskFolia();
             } else {
-                startRefreshTaskBukkit(interval);
+                startRefreshTaskBukkit();
             }
 
             isRunning = true;
             if (config.isDebug()) {
-                plugin.getLogger().info("公共垃圾桶自动刷新已启动，间隔: " + interval + "秒，当前在线玩家: " + playerCount);
+                plugin.getLogger().info("公共垃圾桶到期检查已启动，物品保留时间: " + config.getItemTtl() + "秒，当前在线玩家: " + playerCount);
             }
 
         } catch (Exception e) {
@@ -107,20 +114,15 @@ public class AutoRefreshManager {
     /**
      * 为Folia服务器启动自动刷新任务
      */
-    private void startRefreshTaskFolia(int interval) {
+    private void startRefreshTaskFolia() {
         try {
-            long intervalTicks = interval * 20L; // 转换为tick
-
             GlobalRegionScheduler scheduler = Bukkit.getGlobalRegionScheduler();
 
             // 启动重复任务
             refreshTask = scheduler.runAtFixedRate(plugin, task -> {
-                int count = executionCount.incrementAndGet();
-                if (config.isDebug()) {
-                    plugin.getLogger().info("Folia自动刷新任务触发 [#" + count + "]");
-                }
+                executionCount.incrementAndGet(); // 每秒触发，不输出日志
                 executeRefreshTask();
-            }, intervalTicks, intervalTicks);
+            }, CHECK_INTERVAL_TICKS, CHECK_INTERVAL_TICKS);
 
         } catch (Exception e) {
             plugin.getLogger().warning("Folia自动刷新调度器启动失败: " + e.getMessage());
@@ -131,22 +133,17 @@ public class AutoRefreshManager {
     /**
      * 为传统Bukkit服务器启动自动刷新任务
      */
-    private void startRefreshTaskBukkit(int interval) {
+    private void startRefreshTaskBukkit() {
         try {
-            int intervalTicks = interval * 20;
-
             bukkitRunnable = new BukkitRunnable() {
                 @Override
                 public void run() {
-                    int count = executionCount.incrementAndGet();
-                    if (config.isDebug()) {
-                        plugin.getLogger().info("Bukkit自动刷新任务触发 [#" + count + "]");
-                    }
+                    executionCount.incrementAndGet(); // 每秒触发，不输出日志
                     executeRefreshTask();
                 }
             };
 
-            bukkitRunnable.runTaskTimer(plugin, intervalTicks, intervalTicks);
+            bukkitRunnable.runTaskTimer(plugin, CHECK_INTERVAL_TICKS, CHECK_INTERVAL_TICKS);
 
         } catch (Exception e) {
             plugin.getLogger().warning("Bukkit自动刷新调度器启动失败: " + e.getMessage());
@@ -185,43 +182,39 @@ public class AutoRefreshManager {
     }
 
     /**
-     * 执行自动刷新任务
+     * 执行到期检查：只移除已到期的物品，没有到期物品时不产生任何修改
      */
     private void executeRefreshTask() {
-        int interval = config.getAutoRefresh();
-        if (interval <= 0 || !isRunning) {
+        if (!config.isItemExpiryEnabled()) {
             return;
         }
 
-        int itemCount = dataManager.getPublicTrashSize();
-        if (itemCount > 0) {
-            dataManager.clearPublicTrash();
-            plugin.getLogger().info("公共垃圾桶自动刷新，清除了 " + itemCount + " 个物品");
-
-            // 发送广播消息
-            sendBroadcastMessage(itemCount);
-        } else if (config.isDebug()) {
-            plugin.getLogger().info("公共垃圾桶为空，无需刷新");
-        }
+        // 不等待写者完成，不阻塞全局区域线程
+        dataManager.expirePublicTrashItems().thenAccept(expired -> {
+            if (!expired.isEmpty()) {
+                pendingExpired.addAndGet(expired.size());
+                if (config.isDebug()) {
+                    plugin.getLogger().info("公共垃圾桶中有 " + expired.size() + " 个物品到期，已移除");
+                }
+            }
+        });
+        broadcastExpired();
     }
 
     /**
-     * 发送广播消息
+     * 广播到期移除的物品数量：一分钟内陆续到期的物品合并为一条，避免每秒刷屏
      */
-    private void sendBroadcastMessage(int itemCount) {
-        try {
-            // 构造广播消息
-            String broadcastMessage = "§7公共垃圾桶已自动刷新，清除了 §e" + itemCount + " §7个物品";
-
-            // 在全局调度器中广播消息
-            if (isFolia) {
-                GlobalRegionScheduler globalScheduler = Bukkit.getGlobalRegionScheduler();
-                globalScheduler.run(plugin, task -> Bukkit.broadcastMessage(broadcastMessage));
-            } else {
-                // 传统Bukkit服务器，直接广播
-                Bukkit.getScheduler().runTask(plugin, () -> Bukkit.broadcastMessage(broadcastMessage));
-            }
+    private void broadcastExpired() {
+        long now = System.currentTimeMillis();
+        if (now - lastBroadcast < BROADCAST_INTERVAL_MILLIS || pendingExpired.get() == 0) {
+            return;
+        }
 
+        int itemCount = pendingExpired.getAndSet(0);
+        lastBroadcast = now;
+        plugin.getLogger().info("公共垃圾桶中有 " + itemCount + " 个物品到期，已清除");
+        try {
+            Bukkit.broadcastMessage("§7公共垃圾桶中有 §e" + itemCount + " §7个物品到期，已清除");
         } catch (Exception e) {
             plugin.getLogger().warning("发送广播消息时出错: " + e.getMessage());
         }
@@ -243,12 +236,9 @@ public class AutoRefreshManager {
     }
 
     /**
-     * 立即执行一次刷新任务
+     * 立即执行一次到期检查
      */
     public void refreshNow() {
-        int interval = config.getAutoRefresh();
-        if (interval > 0) {
-            executeRefreshTask();
-        }
+        executeRefreshTask();
     }
 }
\ No newline at end of file
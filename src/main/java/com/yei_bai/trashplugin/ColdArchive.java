@@ -0,0 +1,256 @@
+package com.yei_bai.trashplugin;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 公共垃圾桶冷归档
+ * 到期、因容量上限被挤出或被清空的物品不直接丢弃，而是追加写入 archive/yyyy-MM-dd.dat（按天分段）
+ * 每次写入追加一个独立的 GZIP 成员，文件只追加不修改；只有管理员查询或恢复时才读取
+ * 记录格式: [归档时间 long][原因 byte][物品ID long][长度 int][TrashItemCodec 记录]
+ */
+public class ColdArchive {
+
+    public static final byte REASON_EXPIRED = 1;
+    public static final byte REASON_EVICTED = 2;
+    public static final byte REASON_CLEARED = 3;
+    private static final byte REASON_RESTORED = 4; // 恢复标记：该ID已被恢复，查询时跳过
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Shanghai");
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final JavaPlugin plugin;
+    private final File directory;
+    private final ConcurrentLinkedQueue<Record> pending = new ConcurrentLinkedQueue<>();
+    private List<String> days = null; // 归档日期缓存（供命令补全），分段增删后清空；由 this 同步
+
+    public ColdArchive(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.directory = new File(plugin.getDataFolder(), "archive");
+    }
+
+    /**
+     * 一条归档记录
+     */
+    public static class Record {
+        private final long archivedAt;
+        private final byte reason;
+        private final long id;
+        private final TrashItem item; // 恢复标记没有物品
+
+        private Record(long archivedAt, byte reason, long id, TrashItem item) {
+            this.archivedAt = archivedAt;
+            this.reason = reason;
+            this.id = id;
+            this.item = item;
+        }
+
+        public long getArchivedAt() {
+            return archivedAt;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public TrashItem getItem() {
+            return item;
+        }
+
+        public String getReasonName() {
+            return switch (reason) {
+                case REASON_EXPIRED -> "到期";
+                case REASON_EVICTED -> "超出上限";
+                case REASON_CLEARED -> "清空";
+                default -> "未知";
+            };
+        }
+    }
+
+    /**
+     * 记录一个被移出公共垃圾桶的物品（任意线程调用，只入队，由IO线程写入）
+     */
+    public void add(TrashItem item, byte reason) {
+        pending.offer(new Record(System.currentTimeMillis(), reason, item.getId(), item));
+    }
+
+    /**
+     * 把待写记录按天追加到对应分段
+     */
+    public void flush() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<Record>> byDay = new TreeMap<>();
+        Record record;
+        while ((record = pending.poll()) != null) {
+            byDay.computeIfAbsent(dayOf(record.archivedAt), day -> new ArrayList<>()).add(record);
+        }
+
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        for (Map.Entry<String, List<Record>> entry : byDay.entrySet()) {
+            append(segmentFile(entry.getKey()), entry.getValue());
+        }
+    }
+
+    /**
+     * 读取某一天的归档（已恢复的物品不返回）
+     */
+    public List<Record> read(String day) throws IOException {
+        File file = segmentFile(day);
+        if (!file.exists()) {
+            return List.of();
+        }
+
+        // ID在垃圾桶清空并重启后可能重复，因此不按ID去重；恢复标记只作用于它之前写入的同ID记录
+        // 恢复标记先把之前的同ID记录置空，最后一次性过滤，整体 O(n)
+        List<Record> records = new ArrayList<>();
+        Map<Long, List<Integer>> positions = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file), 64 * 1024)))) {
+            while (true) {
+                long archivedAt;
+                try {
+                    archivedAt = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                byte reason = in.readByte();
+                long id = in.readLong();
+                byte[] bytes = TrashItemCodec.readBlock(in);
+
+                if (reason == REASON_RESTORED) {
+                    List<Integer> restored = positions.remove(id);
+                    if (restored != null) {
+                        for (int index : restored) {
+                            records.set(index, null);
+                        }
+                    }
+                } else {
+                    positions.computeIfAbsent(id, key -> new ArrayList<>(1)).add(records.size());
+                    records.add(new Record(archivedAt, reason, id, TrashItemCodec.decode(bytes)));
+                }
+            }
+        } catch (EOFException e) {
+            plugin.getLogger().warning("归档文件 " + file.getName() + " 末尾不完整，已忽略");
+        }
+        records.removeIf(Objects::isNull);
+        return records;
+    }
+
+    /**
+     * 标记某条归档已被恢复，并立即写入，避免重复恢复
+     */
+    public void markRestored(String day, long id) throws IOException {
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        append(segmentFile(day), List.of(new Record(System.currentTimeMillis(), REASON_RESTORED, id, null)));
+    }
+
+    /**
+     * 所有归档分段的日期，按时间倒序（只读）；只在分段增删后重新列出目录
+     */
+    public synchronized List<String> getArchiveDays() {
+        if (days == null) {
+            File[] files = directory.listFiles((dir, name) -> name.endsWith(".dat"));
+            List<String> listed = new ArrayList<>();
+            if (files != null) {
+                for (File file : files) {
+                    listed.add(file.getName().substring(0, file.getName().length() - 4));
+                }
+            }
+            listed.sort(Comparator.reverseOrder());
+            days = Collections.unmodifiableList(listed);
+        }
+        return days;
+    }
+
+    private synchronized void invalidateDays() {
+        days = null;
+    }
+
+    public long getSegmentSize(String day) {
+        return segmentFile(day).length();
+    }
+
+    /**
+     * 删除超过保留天数的分段（0表示永久保留）
+     */
+    public void purge(int retentionDays) {
+        if (retentionDays <= 0) {
+            return;
+        }
+
+        LocalDate cutoff = LocalDate.now(ZONE).minusDays(retentionDays);
+        for (String day : getArchiveDays()) {
+            try {
+                if (LocalDate.parse(day, DAY_FORMAT).isBefore(cutoff)) {
+                    Files.deleteIfExists(segmentFile(day).toPath());
+                    invalidateDays();
+                    plugin.getLogger().info("已删除过期的归档分段: " + day);
+                }
+            } catch (DateTimeParseException | IOException e) {
+                plugin.getLogger().log(Level.WARNING, "处理归档分段 " + day + " 时出错", e);
+            }
+        }
+    }
+
+    /**
+     * 校验并规范化日期参数，无效时返回 null
+     */
+    public static String parseDay(String input) {
+        try {
+            return LocalDate.parse(input, DAY_FORMAT).format(DAY_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String dayOf(long millis) {
+        return DAY_FORMAT.format(Instant.ofEpochMilli(millis).atZone(ZONE));
+    }
+
+    private File segmentFile(String day) {
+        return new File(directory, day + ".dat");
+    }
+
+    private void append(File file, List<Record> records) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(buffer))) {
+            for (Record record : records) {
+                byte[] bytes = record.item != null ? TrashItemCodec.encode(record.item) : new byte[0];
+                out.writeLong(record.archivedAt);
+                out.writeByte(record.reason);
+                out.writeLong(record.id);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        // 一次写入一个完整的 GZIP 成员，写入中途崩溃只会损坏文件末尾
+        boolean created = !file.exists();
+        try (FileOutputStream fileOut = new FileOutputStream(file, true)) {
+            buffer.writeTo(fileOut);
+            fileOut.getFD().sync();
+        }
+        if (created) {
+            invalidateDays();
+        }
+    }
+}
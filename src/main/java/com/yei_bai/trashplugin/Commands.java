@@ -11,8 +11,11 @@ import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 
 @SuppressWarnings("ALL")
 public class Commands implements CommandExecutor, TabCompleter {
@@ -69,10 +72,29 @@ public class Commands implements CommandExecutor, TabCompleter {
             return true;
         }
 
+        // 用法: /publictrash [页码]、/publictrash mine [页码]、/publictrash <材质> [页码] 或 /publictrash search <内容>
+        if (args.length > 0 && args[0].equalsIgnoreCase("search")) {
+            return handlePublicTrashSearch(player, args, dataManager, publicTrashGUI);
+        }
+
         int page = 0;
-        if (args.length > 0) {
+        TrashView view = TrashView.ALL;
+        int pageArg = 0;
+        if (args.length > 0 && (args[0].equalsIgnoreCase("mine") || args[0].equals("我的"))) {
+            view = TrashView.owner(player.getUniqueId(), player.getName());
+            pageArg = 1;
+        } else if (args.length > 0 && !args[0].matches("-?\\d+")) {
+            Material filter = Material.matchMaterial(args[0]);
+            if (filter == null || !filter.isItem()) {
+                player.sendMessage(ChatColor.RED + "无效的材质: " + args[0]);
+                return true;
+            }
+            view = TrashView.material(filter);
+            pageArg = 1;
+        }
+        if (args.length > pageArg) {
             try {
-                page = Integer.parseInt(args[0]) - 1; // 用户输入从1开始
+                page = Integer.parseInt(args[pageArg]) - 1; // 用户输入从1开始
                 if (page < 0) page = 0;
             } catch (NumberFormatException e) {
                 player.sendMessage(ChatColor.RED + "无效的页码！");
@@ -80,7 +102,32 @@ public class Commands implements CommandExecutor, TabCompleter {
             }
         }
 
-        publicTrashGUI.openGUI(player, page);
+        publicTrashGUI.openGUI(player, page, view);
+        return true;
+    }
+
+    private boolean handlePublicTrashSearch(Player player, String[] args, DataManager dataManager, PublicTrashGUI publicTrashGUI) {
+        if (args.length < 2) {
+            player.sendMessage(ChatColor.RED + "用法: /publictrash search <名称/材质/描述>");
+            return true;
+        }
+
+        String query = String.join(" ", Arrays.copyOfRange(args, 1, args.length));
+        // 搜索完成后回到玩家所属线程上打开界面，不阻塞命令线程
+        dataManager.searchPublicTrash(query).thenAccept(results -> player.getScheduler().run(TrashPlugin.getInstance(), task -> {
+            if (results == null) {
+                player.sendMessage(ChatColor.YELLOW + "搜索索引正在建立，请稍后再试");
+                return;
+            }
+            if (results.isEmpty()) {
+                player.sendMessage(ChatColor.RED + "没有找到与 \"" + query + "\" 匹配的物品");
+                return;
+            }
+
+            player.sendMessage(ChatColor.GREEN + "找到 " + results.size() +
+                    (results.size() >= SearchIndex.MAX_RESULTS ? "+" : "") + " 个匹配的物品");
+            publicTrashGUI.openGUI(player, 0, TrashView.search(query));
+        }, null));
         return true;
     }
 
@@ -113,6 +160,12 @@ public class Commands implements CommandExecutor, TabCompleter {
             case "clear":
                 return handleClearCommand(sender, args, dataManager, messages);
 
+            case "archive":
+                return handleArchiveCommand(sender, args, plugin, dataManager);
+
+            case "owner":
+                return handleOwnerCommand(sender, args, plugin, dataManager);
+
             case "econ":
                 return handleEconomyStatusCommand(sender, plugin);
 
@@ -170,6 +223,7 @@ public class Commands implements CommandExecutor, TabCompleter {
         try {
             Material material = Material.valueOf(materialName);
             config.setCustomPrice(materialName, price);
+            TrashPlugin.getInstance().getDataManager().refreshPrices();
 
             sender.sendMessage("§a已设置 " + materialName + " 的价格为: " + price);
 
@@ -285,7 +339,7 @@ public class Commands implements CommandExecutor, TabCompleter {
             String status = refreshManager != null && refreshManager.isRunning() ?
                     "§a运行中" : "§c已停止";
             sender.sendMessage("§6自动刷新状态: " + status);
-            sender.sendMessage("§7自动刷新间隔: " + plugin.getConfigManager().getAutoRefresh() + "秒");
+            sender.sendMessage("§7物品保留时间: " + plugin.getConfigManager().getItemTtl() + "秒（到期单独移除）");
             return true;
         }
 
@@ -297,14 +351,14 @@ public class Commands implements CommandExecutor, TabCompleter {
                 String status = refreshManager != null && refreshManager.isRunning() ?
                         "§a运行中" : "§c已停止";
                 sender.sendMessage("§6自动刷新状态: " + status);
-                sender.sendMessage("§7自动刷新间隔: " + plugin.getConfigManager().getAutoRefresh() + "秒");
+                sender.sendMessage("§7物品保留时间: " + plugin.getConfigManager().getItemTtl() + "秒（到期单独移除）");
                 return true;
 
             case "now":
                 refreshManager = plugin.getAutoRefreshManager();
                 if (refreshManager != null) {
                     refreshManager.refreshNow();
-                    sender.sendMessage("§a已执行一次公共垃圾桶刷新");
+                    sender.sendMessage("§a已执行一次公共垃圾桶到期检查");
                 } else {
                     sender.sendMessage("§c自动刷新管理器未初始化");
                 }
@@ -330,6 +384,161 @@ public class Commands implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    private boolean handleOwnerCommand(CommandSender sender, String[] args, TrashPlugin plugin, DataManager dataManager) {
+        if (args.length < 2) {
+            sender.sendMessage("§c用法: /trashadmin owner <玩家> [open|clear confirm]");
+            return true;
+        }
+
+        UUID ownerId = dataManager.resolveOwner(args[1]);
+        if (ownerId == null) {
+            sender.sendMessage("§c公共垃圾桶中没有玩家 " + args[1] + " 丢弃的物品");
+            return true;
+        }
+        String ownerName = dataManager.getOwnerName(ownerId);
+        List<TrashItem> owned = dataManager.getOwnerItems(ownerId);
+
+        String action = args.length > 2 ? args[2].toLowerCase() : "info";
+        switch (action) {
+            case "open" -> {
+                if (!(sender instanceof Player player)) {
+                    sender.sendMessage("§c只有玩家才能执行此命令！");
+                    return true;
+                }
+                plugin.getPublicTrashGUI().openGUI(player, 0, TrashView.owner(ownerId, ownerName));
+            }
+            case "clear" -> {
+                if (args.length < 4 || !args[3].equalsIgnoreCase("confirm")) {
+                    sender.sendMessage("§c警告：这将移除 " + ownerName + " 丢弃的全部 " + owned.size() + " 个物品！");
+                    sender.sendMessage("§c使用 /trashadmin owner " + args[1] + " clear confirm 确认操作");
+                    return true;
+                }
+                int removed = dataManager.removeOwnerItems(ownerId).size();
+                sender.sendMessage("§a已移除 " + ownerName + " 丢弃的 " + removed + " 个物品" +
+                        (plugin.getConfigManager().isArchiveEnabled() ? "（已移入归档）" : ""));
+            }
+            default -> {
+                double totalPrice = 0;
+                for (TrashItem item : owned) {
+                    totalPrice += dataManager.getItemPrice(item);
+                }
+                sender.sendMessage("§6=== " + ownerName + " 丢弃的物品 ===");
+                sender.sendMessage("§e数量: §f" + owned.size());
+                sender.sendMessage("§e总价值: §f" + String.format("%.1f", totalPrice) + " " +
+                        plugin.getConfigManager().getCurrencySymbol());
+                sender.sendMessage("§7使用 /trashadmin owner " + args[1] + " open 查看，clear confirm 移除全部");
+            }
+        }
+        return true;
+    }
+
+    private boolean handleArchiveCommand(CommandSender sender, String[] args, TrashPlugin plugin, DataManager dataManager) {
+        // 归档的读写都是磁盘IO，放到异步线程上执行，结果回到发送者所在的线程发送
+        Bukkit.getAsyncScheduler().runNow(plugin, task -> {
+            List<String> lines = new ArrayList<>();
+            runArchiveCommand(lines, args, dataManager);
+            reply(plugin, sender, lines);
+        });
+        return true;
+    }
+
+    private void runArchiveCommand(List<String> lines, String[] args, DataManager dataManager) {
+        ColdArchive archive = dataManager.getArchive();
+
+        if (args.length < 2) {
+            List<String> days = archive.getArchiveDays();
+            lines.add("§6=== 公共垃圾桶归档 ===");
+            if (days.isEmpty()) {
+                lines.add("§7暂无归档");
+            }
+            for (String day : days) {
+                lines.add("§e" + day + " §7(" + Math.max(1, archive.getSegmentSize(day) / 1024) + " KB)");
+            }
+            lines.add("§7使用 /trashadmin archive <日期> [材质/玩家] 查询，/trashadmin archive restore <日期> <编号> 恢复");
+            return;
+        }
+
+        if (args[1].equalsIgnoreCase("restore")) {
+            if (args.length < 4) {
+                lines.add("§c用法: /trashadmin archive restore <日期> <编号>");
+                return;
+            }
+            String day = ColdArchive.parseDay(args[2]);
+            if (day == null) {
+                lines.add("§c无效的日期，格式为 yyyy-MM-dd");
+                return;
+            }
+            long id;
+            try {
+                id = Long.parseLong(args[3].startsWith("#") ? args[3].substring(1) : args[3]);
+            } catch (NumberFormatException e) {
+                lines.add("§c无效的编号！");
+                return;
+            }
+
+            try {
+                TrashItem restored = dataManager.restoreArchivedItem(day, id);
+                if (restored == null) {
+                    lines.add("§c未找到该归档物品（可能已被恢复）");
+                } else {
+                    lines.add("§a已将 §e" + restored.getItemType() + " x" + restored.getAmount() + " §a恢复到公共垃圾桶");
+                }
+            } catch (Exception e) {
+                lines.add("§c恢复归档物品失败: " + e.getMessage());
+            }
+            return;
+        }
+
+        String day = ColdArchive.parseDay(args[1]);
+        if (day == null) {
+            lines.add("§c无效的日期，格式为 yyyy-MM-dd");
+            return;
+        }
+        String filter = args.length > 2 ? args[2].toLowerCase() : null;
+
+        List<ColdArchive.Record> records;
+        try {
+            records = archive.read(day);
+        } catch (Exception e) {
+            lines.add("§c读取归档失败: " + e.getMessage());
+            return;
+        }
+
+        int shown = 0;
+        int matched = 0;
+        lines.add("§6=== " + day + " 的归档 ===");
+        for (ColdArchive.Record record : records) {
+            TrashItem item = record.getItem();
+            if (filter != null && !item.getItemType().name().toLowerCase().contains(filter)
+                    && !item.getOwner().equalsIgnoreCase(filter)) {
+                continue;
+            }
+            matched++;
+            if (shown < 20) {
+                lines.add("§7#" + record.getId() + " §e" + item.getItemType() + " x" + item.getAmount()
+                        + " §7来自 §e" + item.getOwner() + " §7原因: §e" + record.getReasonName()
+                        + " §7时间: §e" + dataManager.formatDate(new Date(record.getArchivedAt())));
+                shown++;
+            }
+        }
+        if (matched == 0) {
+            lines.add("§7没有找到匹配的归档物品");
+        } else if (matched > shown) {
+            lines.add("§7共 " + matched + " 条，只显示前 " + shown + " 条，可加上材质或玩家名缩小范围");
+        }
+    }
+
+    /**
+     * 在发送者所在的线程上发送消息：玩家在其实体线程上，控制台在全局线程上（非 Folia 时即主线程）
+     */
+    private void reply(TrashPlugin plugin, CommandSender sender, List<String> lines) {
+        if (sender instanceof Player player) {
+            player.getScheduler().run(plugin, task -> lines.forEach(player::sendMessage), null);
+        } else {
+            Bukkit.getGlobalRegionScheduler().run(plugin, task -> lines.forEach(sender::sendMessage));
+        }
+    }
+
     private void sendAdminHelp(CommandSender sender) {
         sender.sendMessage("§6=== 垃圾桶插件管理命令 ===");
         sender.sendMessage("§e/trashadmin reload §7- 重载插件配置（重置扫地倒计时）");
@@ -340,6 +549,9 @@ public class Commands implements CommandExecutor, TabCompleter {
         sender.sendMessage("§e/trashadmin refresh status §7- 查看自动刷新状态");
         sender.sendMessage("§e/trashadmin refresh now §7- 立即执行一次自动刷新");
         sender.sendMessage("§e/trashadmin clear confirm §7- 清空公共垃圾桶");
+        sender.sendMessage("§e/trashadmin archive [日期] [材质/玩家] §7- 查询已归档的物品");
+        sender.sendMessage("§e/trashadmin archive restore <日期> <编号> §7- 从归档恢复物品");
+        sender.sendMessage("§e/trashadmin owner <玩家> [open|clear confirm] §7- 查看或移除某个玩家丢弃的物品");
         sender.sendMessage("§e/trashadmin econ §7- 检查经济系统状态");
         sender.sendMessage("§e/trashadmin test <类型> §7- 测试功能 (sweeper|refresh|scheduler)");
         sender.sendMessage("§e/trashadmin help §7- 显示此帮助");
@@ -365,6 +577,8 @@ public class Commands implements CommandExecutor, TabCompleter {
                 commands.add("sweeper");
                 commands.add("refresh");
                 commands.add("clear");
+                commands.add("archive");
+                commands.add("owner");
                 commands.add("econ");
                 commands.add("test");
                 commands.add("help");
@@ -382,6 +596,18 @@ public class Commands implements CommandExecutor, TabCompleter {
                         commands.add(material.toString().toLowerCase());
                     }
                 }
+            } else if (args.length == 2 && args[0].equalsIgnoreCase("archive")) {
+                commands.add("restore");
+                commands.addAll(dataManager.getArchive().getArchiveDays());
+            } else if (args.length == 3 && args[0].equalsIgnoreCase("archive") && args[1].equalsIgnoreCase("restore")) {
+                commands.addAll(dataManager.getArchive().getArchiveDays());
+            } else if (args.length == 2 && args[0].equalsIgnoreCase("owner")) {
+                commands.addAll(dataManager.getOwnerNames());
+            } else if (args.length == 3 && args[0].equalsIgnoreCase("owner")) {
+                commands.add("open");
+                commands.add("clear");
+            } else if (args.length == 4 && args[0].equalsIgnoreCase("owner") && args[2].equalsIgnoreCase("clear")) {
+                commands.add("confirm");
             } else if (args.length == 2 && args[0].equalsIgnoreCase("clear")) {
                 commands.add("confirm");
             } else if (args.length == 2 && args[0].equalsIgnoreCase("test")) {
@@ -391,10 +617,29 @@ public class Commands implements CommandExecutor, TabCompleter {
             }
         } else if (command.getName().equalsIgnoreCase("publictrash")) {
             if (args.length == 1) {
+                commands.add("mine");
+                commands.add("search");
                 int totalPages = dataManager.getTotalPages(config.getItemsPerPage());
                 for (int i = 1; i <= Math.min(totalPages, 10); i++) {
                     commands.add(String.valueOf(i));
                 }
+                // 只补全垃圾桶中现有的材质
+                for (Material material : dataManager.getMaterials()) {
+                    commands.add(material.toString().toLowerCase());
+                }
+            } else if (args.length == 2) {
+                TrashView view = null;
+                if (args[0].equalsIgnoreCase("mine") && sender instanceof Player player) {
+                    view = TrashView.owner(player.getUniqueId(), player.getName());
+                } else if (Material.matchMaterial(args[0]) != null) {
+                    view = TrashView.material(Material.matchMaterial(args[0]));
+                }
+                if (view != null) {
+                    int totalPages = dataManager.getTotalPages(view, config.getItemsPerPage());
+                    for (int i = 1; i <= Math.min(totalPages, 10); i++) {
+                        commands.add(String.valueOf(i));
+                    }
+                }
             }
         }
 
@@ -505,7 +750,7 @@ public class Commands implements CommandExecutor, TabCompleter {
         AutoRefreshManager refresh = plugin.getAutoRefreshManager();
         ConfigManager config = plugin.getConfigManager();
 
-        sender.sendMessage("§7自动刷新间隔: " + config.getAutoRefresh() + "秒");
+        sender.sendMessage("§7物品保留时间: " + config.getItemTtl() + "秒（到期单独移除）");
         sender.sendMessage("§7运行状态: " + (refresh.isRunning() ? "§a运行中" : "§c已停止"));
 
         // 获取当前公共垃圾桶物品数量
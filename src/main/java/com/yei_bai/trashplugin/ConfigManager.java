@@ -6,6 +6,7 @@ import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.Material;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,11 +33,33 @@ public class ConfigManager {
     private String sweeperMessage = "";
     private boolean broadcastSweep = true;
     private List<String> blacklist = new ArrayList<>();
+    private boolean incrementalSweep = true;
+    private int sweepChunksPerTick = 64;
+    private int sweepMicrosPerTick = 2000;
+    private boolean adaptiveSweep = false;
+    private int adaptiveMaxItems = 2000;
+    private int adaptiveMaxItemsPerChunk = 200;
+    private double adaptiveMaxTickMs = 45.0;
+    private int adaptiveCleanThreshold = 50;
+    private int adaptiveMaxInterval = 1800;
+    private int adaptiveCooldown = 60;
 
     // 公共垃圾桶设置
     private int autoRefresh = 3600;
+    private int itemTtl = 3600;
+    private final Map<Material, Integer> materialTtls = new HashMap<>();
     private int saveInterval = 300;
+    private String storageType = "file";
+    private int journalMaxRecords = 10000;
+    private long journalMaxBytes = 4096 * 1024L;
+    private int maxItems = 0;
+    private long maxSizeBytes = 0;
+    private String evictionPolicy = EvictionPolicy.OLDEST;
+    private boolean archiveEnabled = true;
+    private int archiveRetentionDays = 30;
     private int itemsPerPage = 45;
+    private PublicTrashSlot[] publicSlotLayout = new PublicTrashSlot[0];
+    private Material publicDecorationType = Material.GRAY_STAINED_GLASS_PANE;
 
     // 价格设置
     private double defaultPrice = 1.0;
@@ -160,12 +183,69 @@ public class ConfigManager {
                     int nextSlot = controlsSection.getInt("next-page.slot", 53);
                     nextSlot = Math.max(MIN_INVENTORY_SLOT, Math.min(MAX_INVENTORY_SLOT, nextSlot));
                     publicGUISettings.put("next-page-slot", nextSlot);
+
+                    // 材质筛选按钮
+                    String filterMaterial = controlsSection.getString("filter.material", "HOPPER").toUpperCase();
+                    publicGUISettings.put("filter-material", filterMaterial);
+                    publicGUISettings.put("filter-name", controlsSection.getString("filter.name", "&e按材质筛选"));
+                    int filterSlot = controlsSection.getInt("filter.slot", 49);
+                    filterSlot = Math.max(MIN_INVENTORY_SLOT, Math.min(MAX_INVENTORY_SLOT, filterSlot));
+                    publicGUISettings.put("filter-slot", filterSlot);
+
+                    // 我的物品按钮
+                    String mineMaterial = controlsSection.getString("mine.material", "PLAYER_HEAD").toUpperCase();
+                    publicGUISettings.put("mine-material", mineMaterial);
+                    publicGUISettings.put("mine-name", controlsSection.getString("mine.name", "&b我丢弃的物品"));
+                    int mineSlot = controlsSection.getInt("mine.slot", 47);
+                    mineSlot = Math.max(MIN_INVENTORY_SLOT, Math.min(MAX_INVENTORY_SLOT, mineSlot));
+                    publicGUISettings.put("mine-slot", mineSlot);
+
+                    // 排序按钮
+                    String sortMaterial = controlsSection.getString("sort.material", "COMPARATOR").toUpperCase();
+                    publicGUISettings.put("sort-material", sortMaterial);
+                    publicGUISettings.put("sort-name", controlsSection.getString("sort.name", "&d排序方式"));
+                    int sortSlot = controlsSection.getInt("sort.slot", 51);
+                    sortSlot = Math.max(MIN_INVENTORY_SLOT, Math.min(MAX_INVENTORY_SLOT, sortSlot));
+                    publicGUISettings.put("sort-slot", sortSlot);
+
+                    // 页码信息
+                    String pageInfoMaterial = controlsSection.getString("page-info.material", "PAPER").toUpperCase();
+                    publicGUISettings.put("page-info-material", pageInfoMaterial);
+                    int pageInfoSlot = controlsSection.getInt("page-info.slot", 48);
+                    pageInfoSlot = Math.max(MIN_INVENTORY_SLOT, Math.min(MAX_INVENTORY_SLOT, pageInfoSlot));
+                    publicGUISettings.put("page-info-slot", pageInfoSlot);
                 }
 
                 // 显示信息
                 publicGUISettings.put("info-display", publicSection.getStringList("info-display"));
             }
         }
+
+        buildPublicSlotLayout();
+    }
+
+    /**
+     * 预先算好公共垃圾桶每个格子的用途和装饰物品材质，点击时直接查表
+     * 控制按钮优先于物品格；其余格子一律按装饰处理，不允许放入物品
+     */
+    private void buildPublicSlotLayout() {
+        try {
+            publicDecorationType = Material.valueOf(getPublicDecorationMaterial());
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("无效的公共垃圾桶装饰物品材质: " + getPublicDecorationMaterial());
+            publicDecorationType = Material.GRAY_STAINED_GLASS_PANE;
+        }
+
+        PublicTrashSlot[] layout = new PublicTrashSlot[MAX_INVENTORY_SLOT + 1];
+        Arrays.fill(layout, PublicTrashSlot.DECORATION);
+        Arrays.fill(layout, 0, itemsPerPage, PublicTrashSlot.ITEM);
+        layout[getPageInfoSlot()] = PublicTrashSlot.PAGE_INFO;
+        layout[getSortSlot()] = PublicTrashSlot.SORT;
+        layout[getMineSlot()] = PublicTrashSlot.MINE;
+        layout[getFilterSlot()] = PublicTrashSlot.FILTER;
+        layout[getNextPageSlot()] = PublicTrashSlot.NEXT_PAGE;
+        layout[getPreviousPageSlot()] = PublicTrashSlot.PREVIOUS_PAGE;
+        publicSlotLayout = layout;
     }
 
     private void loadSweeperSettings() {
@@ -191,6 +271,20 @@ public class ConfigManager {
                     blacklist.add(mat.toUpperCase().trim());
                 }
 
+                // 分批清扫：每刻最多处理的区块数和耗时（微秒），不足的部分留到下一刻继续
+                incrementalSweep = sweeperSection.getBoolean("incremental.enabled", true);
+                sweepChunksPerTick = Math.max(1, sweeperSection.getInt("incremental.max-chunks-per-tick", 64));
+                sweepMicrosPerTick = Math.max(100, sweeperSection.getInt("incremental.max-micros-per-tick", 2000));
+
+                // 自适应扫地：地面物品过多或服务器变卡时提前扫地，地面干净时逐步拉长间隔
+                adaptiveSweep = sweeperSection.getBoolean("adaptive.enabled", false);
+                adaptiveMaxItems = Math.max(1, sweeperSection.getInt("adaptive.max-items", 2000));
+                adaptiveMaxItemsPerChunk = Math.max(1, sweeperSection.getInt("adaptive.max-items-per-chunk", 200));
+                adaptiveMaxTickMs = Math.max(1.0, sweeperSection.getDouble("adaptive.max-tick-ms", 45.0));
+                adaptiveCleanThreshold = Math.max(0, sweeperSection.getInt("adaptive.clean-threshold", 50));
+                adaptiveMaxInterval = Math.max(sweeperInterval, sweeperSection.getInt("adaptive.max-interval", 1800));
+                adaptiveCooldown = Math.max(10, sweeperSection.getInt("adaptive.cooldown", 60));
+
                 plugin.getLogger().info("扫地功能配置: enabled=" + sweeperEnabled + ", interval=" + sweeperInterval + "秒");
             } else {
                 plugin.getLogger().info("使用扫地功能默认配置");
@@ -209,8 +303,52 @@ public class ConfigManager {
                 autoRefresh = publicTrashSection.getInt("auto-refresh", 3600);
                 autoRefresh = Math.max(0, autoRefresh); // 0表示禁用
 
+                // 物品保留时间：未设置 item-ttl 时沿用旧的 auto-refresh 值
+                itemTtl = Math.max(0, publicTrashSection.getInt("item-ttl", autoRefresh));
+                materialTtls.clear();
+                ConfigurationSection ttlSection = publicTrashSection.getConfigurationSection("material-ttl");
+                if (ttlSection != null) {
+                    for (String key : ttlSection.getKeys(false)) {
+                        Material material = Material.matchMaterial(key.trim());
+                        if (material == null) {
+                            plugin.getLogger().warning("material-ttl 中的材质无效: " + key);
+                            continue;
+                        }
+                        materialTtls.put(material, Math.max(0, ttlSection.getInt(key)));
+                    }
+                }
+
+                saveInterval = publicTrashSection.getInt("save-interval", 300);
+                saveInterval = Math.max(0, saveInterval); // 0表示每次修改立即保存
+
+                // 存储后端：file（二进制文件+日志）或 sqlite（嵌入式数据库）
+                storageType = publicTrashSection.getString("storage", "file").toLowerCase().trim();
+                if (!storageType.equals("file") && !storageType.equals("sqlite")) {
+                    plugin.getLogger().warning("未知的存储类型: " + storageType + "，使用文件存储");
+                    storageType = "file";
+                }
+
+                // 修改日志合并阈值（记录数/文件大小任一超过即合并为新快照）
+                journalMaxRecords = Math.max(100, publicTrashSection.getInt("journal.max-records", 10000));
+                journalMaxBytes = Math.max(64, publicTrashSection.getInt("journal.max-size-kb", 4096)) * 1024L;
+
+                // 数量/容量上限（0表示不限），超出后按策略移除
+                maxItems = Math.max(0, publicTrashSection.getInt("max-items", 0));
+                maxSizeBytes = Math.max(0, publicTrashSection.getInt("max-size-kb", 0)) * 1024L;
+                evictionPolicy = publicTrashSection.getString("eviction-policy", EvictionPolicy.OLDEST).toLowerCase().trim();
+                if (!evictionPolicy.equals(EvictionPolicy.OLDEST) && !evictionPolicy.equals(EvictionPolicy.LOWEST_PRICE)
+                        && !evictionPolicy.equals(EvictionPolicy.LEAST_VIEWED)) {
+                    plugin.getLogger().warning("未知的移除策略: " + evictionPolicy + "，使用 " + EvictionPolicy.OLDEST);
+                    evictionPolicy = EvictionPolicy.OLDEST;
+                }
+
+                // 冷归档：到期、挤出、清空的物品按天写入压缩归档
+                archiveEnabled = publicTrashSection.getBoolean("archive.enabled", true);
+                archiveRetentionDays = Math.max(0, publicTrashSection.getInt("archive.retention-days", 30));
+
                 // 移除了 broadcastRefresh 相关代码
-                plugin.getLogger().info("自动刷新配置: 间隔=" + autoRefresh + "秒");
+                plugin.getLogger().info("物品保留时间: " + itemTtl + "秒，按材质单独设置: " + materialTtls.size() + " 项");
+                plugin.getLogger().info("数据保存间隔: " + saveInterval + "秒");
             }
         } catch (Exception e) {
             plugin.getLogger().warning("加载公共垃圾桶设置时出错: " + e.getMessage());
@@ -283,6 +421,18 @@ public class ConfigManager {
         return (String) publicGUISettings.getOrDefault("decoration-material", "GRAY_STAINED_GLASS_PANE");
     }
 
+    /**
+     * 公共垃圾桶界面中格子的用途，超出界面范围（玩家背包）时返回 null
+     */
+    public PublicTrashSlot getPublicSlot(int rawSlot) {
+        PublicTrashSlot[] layout = publicSlotLayout;
+        return rawSlot >= 0 && rawSlot < layout.length ? layout[rawSlot] : null;
+    }
+
+    public Material getPublicDecorationType() {
+        return publicDecorationType;
+    }
+
     public String getPublicDecorationName() {
         return (String) publicGUISettings.getOrDefault("decoration-name", "&8╏");
     }
@@ -311,6 +461,50 @@ public class ConfigManager {
         return (String) publicGUISettings.getOrDefault("next-page-name", "&a下一页");
     }
 
+    public int getFilterSlot() {
+        return (int) publicGUISettings.getOrDefault("filter-slot", 49);
+    }
+
+    public String getFilterMaterial() {
+        return (String) publicGUISettings.getOrDefault("filter-material", "HOPPER");
+    }
+
+    public String getFilterName() {
+        return (String) publicGUISettings.getOrDefault("filter-name", "&e按材质筛选");
+    }
+
+    public int getMineSlot() {
+        return (int) publicGUISettings.getOrDefault("mine-slot", 47);
+    }
+
+    public String getMineMaterial() {
+        return (String) publicGUISettings.getOrDefault("mine-material", "PLAYER_HEAD");
+    }
+
+    public String getMineName() {
+        return (String) publicGUISettings.getOrDefault("mine-name", "&b我丢弃的物品");
+    }
+
+    public int getSortSlot() {
+        return (int) publicGUISettings.getOrDefault("sort-slot", 51);
+    }
+
+    public String getSortMaterial() {
+        return (String) publicGUISettings.getOrDefault("sort-material", "COMPARATOR");
+    }
+
+    public String getSortName() {
+        return (String) publicGUISettings.getOrDefault("sort-name", "&d排序方式");
+    }
+
+    public int getPageInfoSlot() {
+        return (int) publicGUISettings.getOrDefault("page-info-slot", 48);
+    }
+
+    public String getPageInfoMaterial() {
+        return (String) publicGUISettings.getOrDefault("page-info-material", "PAPER");
+    }
+
     public List<String> getInfoDisplay(TrashItem trashItem) {
         List<String> info = (List<String>) publicGUISettings.getOrDefault("info-display", new ArrayList<>());
         List<String> formattedInfo = new ArrayList<>();
@@ -352,6 +546,46 @@ public class ConfigManager {
         return new ArrayList<>(blacklist);
     }
 
+    public boolean isIncrementalSweep() {
+        return incrementalSweep;
+    }
+
+    public int getSweepChunksPerTick() {
+        return sweepChunksPerTick;
+    }
+
+    public int getSweepMicrosPerTick() {
+        return sweepMicrosPerTick;
+    }
+
+    public boolean isAdaptiveSweep() {
+        return adaptiveSweep;
+    }
+
+    public int getAdaptiveMaxItems() {
+        return adaptiveMaxItems;
+    }
+
+    public int getAdaptiveMaxItemsPerChunk() {
+        return adaptiveMaxItemsPerChunk;
+    }
+
+    public double getAdaptiveMaxTickMs() {
+        return adaptiveMaxTickMs;
+    }
+
+    public int getAdaptiveCleanThreshold() {
+        return adaptiveCleanThreshold;
+    }
+
+    public int getAdaptiveMaxInterval() {
+        return adaptiveMaxInterval;
+    }
+
+    public int getAdaptiveCooldown() {
+        return adaptiveCooldown;
+    }
+
     public boolean isBlacklisted(Material material) {
         return material != null && blacklist.contains(material.toString().toUpperCase());
     }
@@ -369,10 +603,60 @@ public class ConfigManager {
         return autoRefresh;
     }
 
+    /**
+     * 物品从丢弃起的默认保留时间（秒），0表示永久保留
+     */
+    public int getItemTtl() {
+        return itemTtl;
+    }
+
+    /**
+     * 按材质单独设置的保留时间（秒），未设置的材质使用 {@link #getItemTtl()}
+     */
+    public Map<Material, Integer> getMaterialTtls() {
+        return new HashMap<>(materialTtls);
+    }
+
+    public boolean isItemExpiryEnabled() {
+        return itemTtl > 0 || materialTtls.values().stream().anyMatch(ttl -> ttl > 0);
+    }
+
     public int getSaveInterval() {
         return saveInterval;
     }
 
+    public String getStorageType() {
+        return storageType;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    public long getMaxSizeBytes() {
+        return maxSizeBytes;
+    }
+
+    public String getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    public boolean isArchiveEnabled() {
+        return archiveEnabled;
+    }
+
+    public int getArchiveRetentionDays() {
+        return archiveRetentionDays;
+    }
+
+    public int getJournalMaxRecords() {
+        return journalMaxRecords;
+    }
+
+    public long getJournalMaxBytes() {
+        return journalMaxBytes;
+    }
+
     public int getItemsPerPage() {
         return itemsPerPage;
     }
@@ -1,36 +1,93 @@
 package com.yei_bai.trashplugin;
 
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.OfflinePlayer;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
 import java.util.logging.Level;
 
 @SuppressWarnings("ALL")
 public class DataManager {
 
     private final JavaPlugin plugin;
-    private File dataFile;
+    private final ConfigManager config;
+    private File dataFile; // 自定义价格
     private FileConfiguration data;
 
-    private final Map<String, Double> customPrices = new HashMap<>();
-    private final List<TrashItem> publicTrashItems = new ArrayList<>();
+    private final Map<String, Double> customPrices = new ConcurrentHashMap<>();
+    // 单写者内存数据：各线程提交修改，读取已发布的不可变快照
+    private final PublicTrash publicTrash;
+    private final ColdArchive archive; // 被系统移出的物品写入冷归档，按需读取
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
+    // 延迟写入：修改先记入待写队列，由IO线程按 save-interval 周期交给存储后端
+    private ScheduledExecutorService ioExecutor = null;
+    private TrashStore store;
+    private final ConcurrentLinkedQueue<TrashJournal.Entry> pendingEntries = new ConcurrentLinkedQueue<>();
+    private volatile boolean compactRequested = false;
+    private volatile boolean storeReadOnly = false; // 加载失败时不再写入存储，避免用不完整的内存数据覆盖原有数据
+    private volatile boolean pricesDirty = false;
+    private volatile int displayVersion = 0; // 价格或配置变化时递增，界面据此丢弃缓存的展示物品
+    private volatile Runnable changeListener;
+
+    // 使用数据库后端时不把整表载入内存，分页、计数、搜索和修改都直接交给数据库
+    private volatile SqlTrashStore sqlStore = null;
+    // 按加入先后翻页时每页最后一个物品的ID，下一页从它之后查询；数据库有修改时清空
+    private final Map<PageKey, Long> pageCursors = new ConcurrentHashMap<>();
+    private volatile long storedVersion = 0L; // 数据库后端每次修改后递增
+    // 最近完成的搜索结果及其对应的数据版本，界面渲染时直接使用，不等待搜索
+    private final Map<String, SearchResult> searchResults = new ConcurrentHashMap<>();
+    private final Set<String> searching = ConcurrentHashMap.newKeySet();
+    private static final int MAX_CACHED_PAGES = 256;
+    private static final int MAX_CACHED_SEARCHES = 64;
+
+    private record PageKey(TrashView view, TrashSort sort, int page, int itemsPerPage) {
+    }
+
+    private record SearchResult(long version, List<TrashItem> items) {
+    }
+
+    /**
+     * 对数据库后端的一次访问
+     */
+    private interface StoreQuery<T> {
+        T run(SqlTrashStore store) throws IOException;
+    }
+
     static {
         ConfigurationSerialization.registerClass(TrashItem.class, "TrashItem");
     }
 
-    public DataManager(JavaPlugin plugin) {
+    public DataManager(JavaPlugin plugin, ConfigManager config) {
         this.plugin = plugin;
+        this.config = config;
         this.dateFormat.setTimeZone(TimeZone.getTimeZone("Asia/Shanghai"));
+        this.archive = new ColdArchive(plugin);
+        this.publicTrash = new PublicTrash(plugin, config, pendingEntries::offer, (item, reason) -> {
+            if (config.isArchiveEnabled()) {
+                archive.add(item, reason);
+            }
+        });
     }
 
     public void loadData() {
@@ -46,6 +103,7 @@ public class DataManager {
         }
 
         data = YamlConfiguration.loadConfiguration(dataFile);
+        customPrices.clear();
 
         // 加载自定义价格
         if (data.contains("custom-prices")) {
@@ -58,106 +116,925 @@ public class DataManager {
         }
 
         // 加载公共垃圾桶物品
-        if (data.contains("public-trash-items")) {
+        if (store != null) {
+            store.close();
+        }
+        store = createStore();
+        sqlStore = null;
+        searchResults.clear();
+        compactRequested = false;
+        storeReadOnly = false;
+
+        if (store instanceof SqlTrashStore sql) {
+            loadStoredData(sql);
+            return;
+        }
+
+        long sequence = 0L;
+        List<TrashItem> loaded = new ArrayList<>();
+
+        if (store.exists()) {
+            try {
+                sequence = store.load(loaded);
+            } catch (Exception e) {
+                // 数据未能完整载入，继续写入会用缺失的数据覆盖存储中的原有数据
+                storeReadOnly = true;
+                loaded.clear();
+                sequence = 0L;
+                plugin.getLogger().log(Level.SEVERE, "读取公共垃圾桶数据时出错，本次运行不会写入存储", e);
+            }
+        } else {
+            loaded = migrateLegacyData();
+        }
+
+        archive.purge(config.getArchiveRetentionDays());
+
+        // 旧数据只记录了丢弃者名称，按服务端的玩家缓存补上UUID（不发起网络查询）
+        boolean ownersResolved = resolveLegacyOwners(loaded);
+
+        // 为没有ID的旧数据补发ID后尽快合并写回存储
+        try {
+            if (publicTrash.reset(loaded, sequence, pendingEntries::clear) || ownersResolved) {
+                compactRequested = true;
+            }
+        } catch (IllegalStateException e) {
+            storeReadOnly = true;
+            plugin.getLogger().log(Level.SEVERE, "载入公共垃圾桶数据时出错，本次运行不会写入存储", e);
+        }
+
+        // 应用数量/容量上限，超出部分按策略移除
+        try {
+            publicTrash.configure(config.getMaxItems(), config.getMaxSizeBytes(),
+                    EvictionPolicy.create(config.getEvictionPolicy(), this::getItemPrice), createTtlFunction(),
+                    this::getItemPrice);
+        } catch (IllegalStateException e) {
+            plugin.getLogger().log(Level.SEVERE, "应用公共垃圾桶上限配置时出错", e);
+        }
+
+        displayVersion++;
+        notifyChanged();
+
+        // 搜索索引需要解码每个物品，放到异步线程上建立，不拖慢启动
+        Bukkit.getAsyncScheduler().runNow(plugin, task -> publicTrash.buildSearchIndex());
+
+        plugin.getLogger().info("已加载 " + publicTrash.getSnapshot().size() + " 个公共垃圾桶物品（存储: " + store.getName() + "）");
+        plugin.getLogger().info("已加载 " + customPrices.size() + " 个自定义价格");
+    }
+
+    /**
+     * 数据库后端：只在首次使用时迁移旧数据，之后按需查询，不载入物品
+     */
+    private void loadStoredData(SqlTrashStore sql) {
+        if (!sql.exists()) {
+            migrateLegacyData();
+        }
+
+        archive.purge(config.getArchiveRetentionDays());
+
+        // 清空内存数据，避免从文件后端切换过来后仍显示之前的物品
+        try {
+            publicTrash.reset(List.of(), 0L, pendingEntries::clear);
+        } catch (IllegalStateException e) {
+            plugin.getLogger().log(Level.SEVERE, "清空公共垃圾桶内存数据时出错", e);
+        }
+
+        if (EvictionPolicy.LEAST_VIEWED.equals(config.getEvictionPolicy())) {
+            plugin.getLogger().warning("数据库存储不记录物品的查看顺序，移除策略 least-viewed 按 oldest 处理");
+        }
+
+        sqlStore = sql;
+        try {
+            sql.setPrices(getUnitPrices(), config.getDefaultPrice());
+            archiveDropped(sql.evict(config.getMaxItems(), config.getMaxSizeBytes(), isLowestPriceEviction()),
+                    ColdArchive.REASON_EVICTED);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "应用公共垃圾桶上限配置时出错", e);
+        }
+
+        displayVersion++;
+        storedChanged();
+
+        plugin.getLogger().info("公共垃圾桶中有 " + getPublicTrashSize() + " 个物品（存储: " + sql.getName() + "，按页查询）");
+        plugin.getLogger().info("已加载 " + customPrices.size() + " 个自定义价格");
+    }
+
+    private boolean resolveLegacyOwners(List<TrashItem> loaded) {
+        Map<String, UUID> resolved = new HashMap<>();
+        int count = 0;
+        for (TrashItem item : loaded) {
+            if (item.getOwnerId() != null) {
+                continue;
+            }
+            UUID ownerId = resolved.computeIfAbsent(item.getOwner(), name -> {
+                OfflinePlayer player = Bukkit.getOfflinePlayerIfCached(name);
+                return player != null ? player.getUniqueId() : null;
+            });
+            if (ownerId != null) {
+                item.setOwnerId(ownerId);
+                count++;
+            }
+        }
+        if (count > 0) {
+            plugin.getLogger().info("已为 " + count + " 个旧物品补充丢弃者UUID");
+        }
+        return count > 0;
+    }
+
+    /**
+     * 按当前配置生成物品保留时长（毫秒）的计算函数，配置在此刻固定下来，重载后重新生成
+     */
+    private ToLongFunction<TrashItem> createTtlFunction() {
+        long defaultTtl = config.getItemTtl() * 1000L;
+        EnumMap<Material, Long> materialTtls = new EnumMap<>(Material.class);
+        for (Map.Entry<Material, Integer> entry : config.getMaterialTtls().entrySet()) {
+            materialTtls.put(entry.getKey(), entry.getValue() * 1000L);
+        }
+        return item -> materialTtls.getOrDefault(item.getItemType(), defaultTtl);
+    }
+
+    /**
+     * 根据配置创建存储后端，SQLite不可用时回退到文件存储
+     */
+    private TrashStore createStore() {
+        if ("sqlite".equalsIgnoreCase(config.getStorageType())) {
+            SqlTrashStore sqlStore = new SqlTrashStore(plugin);
+            try {
+                sqlStore.open();
+                return sqlStore;
+            } catch (Exception e) {
+                plugin.getLogger().warning("无法打开SQLite数据库，改用文件存储: " + e.getMessage());
+                sqlStore.close();
+            }
+        }
+        return new FileTrashStore(plugin, config);
+    }
+
+    /**
+     * 一次性迁移：当前后端没有数据时，依次尝试从二进制文件 trash.dat（切换到数据库时）
+     * 和旧版 data.yml 导入物品，写入当前后端
+     * 从 data.yml 迁移成功后其中只保留自定义价格，原文件备份为 data.yml.bak
+     */
+    private List<TrashItem> migrateLegacyData() {
+        List<TrashItem> loaded = new ArrayList<>();
+        boolean fromYaml = false;
+
+        if (!(store instanceof FileTrashStore)) {
+            FileTrashStore fileStore = new FileTrashStore(plugin, config);
+            if (fileStore.exists()) {
+                try {
+                    fileStore.load(loaded);
+                    plugin.getLogger().info("正在从 trash.dat 导入 " + loaded.size() + " 个公共垃圾桶物品");
+                } catch (IOException e) {
+                    plugin.getLogger().log(Level.SEVERE, "读取 trash.dat 失败", e);
+                }
+            }
+        }
+
+        if (loaded.isEmpty() && data.contains("public-trash-items")) {
             List<?> items = data.getList("public-trash-items");
             if (items != null) {
                 for (Object obj : items) {
-                    if (obj instanceof TrashItem) {
-                        publicTrashItems.add((TrashItem) obj);
+                    if (obj instanceof TrashItem trashItem) {
+                        loaded.add(trashItem);
                     }
                 }
             }
+            loaded.removeIf(trashItem -> trashItem.getItemType().isAir());
+            fromYaml = true;
+        }
+        // 迁移的数据还没有ID，按顺序分配，与写入后端的一致
+        for (int i = 0; i < loaded.size(); i++) {
+            loaded.get(i).setId(i + 1);
         }
+        resolveLegacyOwners(loaded);
 
-        plugin.getLogger().info("已加载 " + publicTrashItems.size() + " 个公共垃圾桶物品");
-        plugin.getLogger().info("已加载 " + customPrices.size() + " 个自定义价格");
+        try {
+            // 即使没有旧数据也写入一次，标记后端已初始化
+            store.compact(loaded, 0L);
+            if (fromYaml) {
+                Files.copy(dataFile.toPath(), new File(dataFile.getParentFile(), "data.yml.bak").toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+                writePrices();
+                plugin.getLogger().info("已将 " + loaded.size() + " 个公共垃圾桶物品迁移到存储后端 "
+                        + store.getName() + "，原数据备份为 data.yml.bak");
+            }
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.SEVERE, "迁移公共垃圾桶数据失败，将在下次启动时重试", e);
+        }
+        return loaded;
     }
 
+    /**
+     * 启动延迟写入任务（save-interval 为0时每次修改立即写入后端）
+     */
+    public void startAutoSave() {
+        stopAutoSave();
+
+        int interval = config.getSaveInterval();
+        if (interval <= 0) {
+            return;
+        }
+
+        ioExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "TrashPlugin-DataIO");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ioExecutor.scheduleWithFixedDelay(this::flushPending, interval, interval, TimeUnit.SECONDS);
+
+        if (config.isDebug()) {
+            plugin.getLogger().info("数据延迟写入已启用，保存间隔: " + interval + "秒");
+        }
+    }
+
+    /**
+     * 停止延迟写入任务，等待正在进行的写入完成
+     */
+    public void stopAutoSave() {
+        if (ioExecutor == null) {
+            return;
+        }
+
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("等待数据写入线程结束超时");
+                ioExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            ioExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            ioExecutor = null;
+        }
+    }
+
+    /**
+     * 立即同步写入所有待写修改（关闭插件、重载时使用）
+     */
     public void saveData() {
         if (data == null || dataFile == null) {
             return;
         }
 
-        // 保存自定义价格
-        for (Map.Entry<String, Double> entry : customPrices.entrySet()) {
-            data.set("custom-prices." + entry.getKey(), entry.getValue());
+        flushPending();
+    }
+
+    /**
+     * 关闭存储后端（在 saveData 之后调用）
+     */
+    public void closeStore() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     * 未启用延迟写入时，在修改线程上同步写入（仅写入本次修改，开销与垃圾桶大小无关）
+     */
+    private void flushIfImmediate() {
+        if (ioExecutor == null) {
+            flushPending();
+        }
+    }
+
+    /**
+     * 把待写记录交给存储后端，后端需要时（如日志过长）合并为新快照
+     */
+    private synchronized void flushPending() {
+        if (store == null) {
+            return;
         }
 
-        // 保存公共垃圾桶物品
-        data.set("public-trash-items", new ArrayList<>(publicTrashItems));
+        try {
+            if (storeReadOnly || sqlStore != null) {
+                // 数据库后端的修改已直接提交
+                pendingEntries.clear();
+            } else if (compactRequested) {
+                compact();
+            } else {
+                List<TrashJournal.Entry> entries = new ArrayList<>();
+                TrashJournal.Entry entry;
+                while ((entry = pendingEntries.poll()) != null) {
+                    entries.add(entry);
+                }
+                store.append(entries);
+
+                if (store.needsCompaction()) {
+                    compact();
+                }
+            }
+        } catch (Exception e) {
+            // 写入失败的记录已出队，下个周期改为写入完整快照
+            compactRequested = true;
+            plugin.getLogger().log(Level.SEVERE, "写入公共垃圾桶数据时出错", e);
+        }
 
         try {
-            data.save(dataFile);
+            archive.flush();
         } catch (IOException e) {
-            plugin.getLogger().log(Level.SEVERE, "无法保存数据文件", e);
+            plugin.getLogger().log(Level.SEVERE, "写入公共垃圾桶归档时出错", e);
+        }
+
+        if (pricesDirty) {
+            pricesDirty = false;
+            try {
+                writePrices();
+            } catch (IOException e) {
+                pricesDirty = true;
+                plugin.getLogger().log(Level.SEVERE, "无法保存自定义价格", e);
+            }
         }
     }
 
+    /**
+     * 合并：取最近发布的快照及其包含的最后一条修改序号，无需加锁，不阻塞游戏线程
+     */
+    private synchronized void compact() throws IOException {
+        TrashSnapshot snapshot = publicTrash.getSnapshot();
+        long sequence = snapshot.getSequence();
+
+        // 丢弃已包含在快照中的待写记录；写者先记录修改再发布快照，因此序号更大的记录都还在队列中
+        TrashJournal.Entry entry;
+        while ((entry = pendingEntries.peek()) != null && entry.getSequence() <= sequence) {
+            pendingEntries.poll();
+        }
+
+        store.compact(snapshot.getItems(), sequence);
+        compactRequested = false;
+
+        if (config.isDebug()) {
+            plugin.getLogger().info("公共垃圾桶数据已合并为快照，物品数: " + snapshot.size());
+        }
+    }
+
+    /**
+     * 写入自定义价格，先写临时文件再替换，避免写一半损坏
+     */
+    private void writePrices() throws IOException {
+        YamlConfiguration output = new YamlConfiguration();
+        for (Map.Entry<String, Double> entry : customPrices.entrySet()) {
+            output.set("custom-prices." + entry.getKey(), entry.getValue());
+        }
+
+        File tempFile = new File(dataFile.getParentFile(), dataFile.getName() + ".tmp");
+        output.save(tempFile);
+        Files.move(tempFile.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
     public void addPublicTrashItem(TrashItem trashItem) {
-        publicTrashItems.add(trashItem);
-        saveData();
+        if (trashItem.getItemType().isAir()) {
+            return; // 空物品无法序列化
+        }
+
+        if (sqlStore != null) {
+            addStored(List.of(trashItem));
+            return;
+        }
+        publicTrash.add(List.of(trashItem));
+        flushIfImmediate();
     }
 
     public void addPublicTrashItem(ItemStack item, String owner) {
-        TrashItem trashItem = new TrashItem(item, owner, new Date());
-        publicTrashItems.add(trashItem);
-        saveData();
+        addPublicTrashItem(new TrashItem(item, owner, new Date()));
+    }
+
+    /**
+     * 批量添加非玩家来源（如扫地系统）的物品
+     */
+    public int addPublicTrashItems(Collection<ItemStack> items, String owner) {
+        return addPublicTrashItems(items, owner, null);
+    }
+
+    /**
+     * 批量添加物品：只提交一次修改、只触发一次写入，返回实际添加的数量
+     *
+     * @param ownerId 丢弃者UUID，非玩家来源时为 null
+     */
+    public int addPublicTrashItems(Collection<ItemStack> items, String owner, UUID ownerId) {
+        Date now = new Date();
+        List<TrashItem> trashItems = new ArrayList<>(items.size());
+        for (ItemStack item : items) {
+            if (item != null && !item.getType().isAir()) {
+                TrashItem trashItem = new TrashItem(item, owner, now);
+                trashItem.setOwnerId(ownerId);
+                trashItems.add(trashItem);
+            }
+        }
+        if (trashItems.isEmpty()) {
+            return 0;
+        }
+
+        if (sqlStore != null) {
+            return addStored(trashItems) ? trashItems.size() : 0;
+        }
+        publicTrash.add(trashItems);
+        flushIfImmediate();
+        return trashItems.size();
+    }
+
+    /**
+     * 写入数据库并按上限移除超出的物品
+     */
+    private boolean addStored(List<TrashItem> trashItems) {
+        boolean added = queryStore(store -> {
+            store.insert(trashItems);
+            archiveDropped(store.evict(config.getMaxItems(), config.getMaxSizeBytes(), isLowestPriceEviction()),
+                    ColdArchive.REASON_EVICTED);
+            return true;
+        }, false, "写入公共垃圾桶物品时出错");
+        storedChanged();
+        return added;
+    }
+
+    public TrashItem getPublicTrashItem(long id) {
+        if (sqlStore != null) {
+            return queryStore(store -> store.get(id), null, "读取公共垃圾桶物品时出错");
+        }
+        return publicTrash.getSnapshot().get(id);
+    }
+
+    /**
+     * 按ID删除物品，返回被删除的物品；物品已不存在（如已被他人买走）时返回 null
+     */
+    public TrashItem removePublicTrashItem(long id) {
+        if (sqlStore != null) {
+            TrashItem removed = queryStore(store -> store.remove(id), null, "删除公共垃圾桶物品时出错");
+            if (removed != null) {
+                storedChanged();
+            }
+            return removed;
+        }
+
+        TrashItem removed;
+        try {
+            removed = publicTrash.remove(id);
+        } catch (IllegalStateException e) {
+            plugin.getLogger().log(Level.SEVERE, "删除公共垃圾桶物品时出错", e);
+            return null;
+        }
+        if (removed != null) {
+            flushIfImmediate();
+        }
+        return removed;
     }
 
     public boolean removePublicTrashItem(TrashItem trashItem) {
-        boolean result = publicTrashItems.remove(trashItem);
-        if (result) {
-            saveData(); // 立即保存
+        return removePublicTrashItem(trashItem.getId()) != null;
+    }
+
+    /**
+     * 移除已到期的物品，不等待完成；结果为被移除的物品，在写者线程（数据库后端为异步线程）上完成
+     * 没有到期物品时几乎没有开销
+     */
+    public CompletableFuture<List<TrashItem>> expirePublicTrashItems() {
+        if (sqlStore != null) {
+            return queryStoreAsync(this::expireStored, List.of(), "移除到期物品时出错").thenApply(expired -> {
+                if (!expired.isEmpty()) {
+                    archiveDropped(expired, ColdArchive.REASON_EXPIRED);
+                    storedChanged();
+                }
+                return expired;
+            });
         }
-        return result;
+
+        return publicTrash.expire(System.currentTimeMillis()).handle((expired, error) -> {
+            if (error != null) {
+                plugin.getLogger().log(Level.SEVERE, "移除到期物品时出错", error);
+                return List.<TrashItem>of();
+            }
+            if (!expired.isEmpty()) {
+                flushIfImmediate();
+            }
+            return expired;
+        });
     }
 
-    public void removePublicTrashItem(int index) {
-        if (index >= 0 && index < publicTrashItems.size()) {
-            publicTrashItems.remove(index);
-            saveData(); // 立即保存
+    private List<TrashItem> expireStored(SqlTrashStore store) throws IOException {
+        Map<Material, Long> materialTtls = new EnumMap<>(Material.class);
+        for (Map.Entry<Material, Integer> entry : config.getMaterialTtls().entrySet()) {
+            materialTtls.put(entry.getKey(), entry.getValue() * 1000L);
         }
+        return store.expire(System.currentTimeMillis(), config.getItemTtl() * 1000L, materialTtls);
     }
 
-    public void clearPublicTrash() {
-        publicTrashItems.clear();
-        saveData(); // 立即保存
+    public ColdArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * 从归档中恢复一个物品到公共垃圾桶（以新ID加入），并在归档中标记为已恢复
+     * 找不到或已恢复时返回 null；读写归档文件，应在异步线程上调用，同步以免同一物品被并发恢复两次
+     */
+    public synchronized TrashItem restoreArchivedItem(String day, long id) throws IOException {
+        flushPending(); // 先写入尚未落盘的归档记录
+        for (ColdArchive.Record record : archive.read(day)) {
+            if (record.getId() == id) {
+                archive.markRestored(day, id);
+                // 以当前时间重新计算保留时间，避免恢复后立即到期
+                TrashItem archived = record.getItem();
+                TrashItem restored = new TrashItem(archived.getItemData(), archived.getItemType(), archived.getAmount(),
+                        archived.getOwner(), new Date(), archived.getCustomPrice());
+                restored.setOwnerId(archived.getOwnerId());
+                addPublicTrashItem(restored);
+                return restored;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 移除某个玩家丢弃的全部物品（移入归档），返回被移除的物品
+     */
+    public List<TrashItem> removeOwnerItems(UUID ownerId) {
+        if (sqlStore != null) {
+            List<TrashItem> removed = queryStore(store -> store.removeOwner(ownerId), List.of(), "移除玩家丢弃的物品时出错");
+            if (!removed.isEmpty()) {
+                archiveDropped(removed, ColdArchive.REASON_CLEARED);
+                storedChanged();
+            }
+            return removed;
+        }
+
+        List<TrashItem> removed;
+        try {
+            removed = publicTrash.removeOwner(ownerId);
+        } catch (IllegalStateException e) {
+            plugin.getLogger().log(Level.SEVERE, "移除玩家丢弃的物品时出错", e);
+            return List.of();
+        }
+        if (!removed.isEmpty()) {
+            flushIfImmediate();
+        }
+        return removed;
     }
 
-    public List<TrashItem> getPublicTrashItems() {
-        return new ArrayList<>(publicTrashItems);
+    /**
+     * 按名称查找丢弃者UUID：先查在线玩家，再查垃圾桶的名称缓存；找不到时返回 null
+     */
+    public UUID resolveOwner(String name) {
+        Player online = Bukkit.getPlayerExact(name);
+        if (online != null) {
+            return online.getUniqueId();
+        }
+        if (sqlStore != null) {
+            return queryStore(store -> store.resolveOwner(name), null, "查找丢弃者时出错");
+        }
+        return publicTrash.resolveOwner(name);
+    }
+
+    public String getOwnerName(UUID ownerId) {
+        String name = sqlStore != null
+                ? queryStore(store -> store.getOwnerName(ownerId), null, "查找丢弃者时出错")
+                : publicTrash.getOwnerName(ownerId);
+        if (name == null) {
+            Player online = Bukkit.getPlayer(ownerId);
+            name = online != null ? online.getName() : ownerId.toString();
+        }
+        return name;
+    }
+
+    public Set<String> getOwnerNames() {
+        if (sqlStore != null) {
+            return new HashSet<>(queryStore(SqlTrashStore::getOwnerNames, Map.<UUID, String>of(), "查找丢弃者时出错").values());
+        }
+        return publicTrash.getOwnerNames();
+    }
+
+    /**
+     * 某个玩家丢弃的全部物品（按加入顺序）
+     */
+    public List<TrashItem> getOwnerItems(UUID ownerId) {
+        if (sqlStore != null) {
+            return queryStore(store -> store.getOwnerItems(ownerId), List.of(), "读取公共垃圾桶物品时出错");
+        }
+        return publicTrash.getSnapshot().getOwnerItems(ownerId);
+    }
+
+    /**
+     * 当前垃圾桶中出现的所有材质
+     */
+    public Set<Material> getMaterials() {
+        if (sqlStore != null) {
+            return queryStore(SqlTrashStore::getMaterials, Set.of(), "读取公共垃圾桶物品时出错");
+        }
+        return publicTrash.getSnapshot().getMaterials();
+    }
+
+    public void clearPublicTrash() {
+        if (sqlStore != null) {
+            queryStore(store -> {
+                store.clear(config.isArchiveEnabled() ? item -> archive.add(item, ColdArchive.REASON_CLEARED) : null);
+                return null;
+            }, null, "清空公共垃圾桶时出错");
+            storedChanged();
+            return;
+        }
+        publicTrash.clear();
+        flushIfImmediate();
     }
 
     public List<TrashItem> getPublicTrashItems(int page, int itemsPerPage) {
-        int start = page * itemsPerPage;
-        int end = Math.min(start + itemsPerPage, publicTrashItems.size());
+        return getPublicTrashItems(TrashView.ALL, TrashSort.OLDEST, page, itemsPerPage);
+    }
+
+    /**
+     * 筛选范围（材质、丢弃者等）内的某一页
+     */
+    public List<TrashItem> getPublicTrashItems(TrashView view, int page, int itemsPerPage) {
+        return getPublicTrashItems(view, TrashSort.OLDEST, page, itemsPerPage);
+    }
+
+    /**
+     * 按排序方式返回筛选范围内的某一页
+     */
+    public List<TrashItem> getPublicTrashItems(TrashView view, TrashSort sort, int page, int itemsPerPage) {
+        if (sqlStore != null) {
+            return getStoredPage(view, sort, page, itemsPerPage);
+        }
+        if (view.getType() == TrashView.Type.SEARCH) {
+            // 同一份搜索结果在快照中只排序一次
+            List<TrashItem> results = getSearchResults(view.getQuery());
+            if (results == null) {
+                return List.of();
+            }
+            return publicTrash.getSnapshot().sortedPage(view, results, sort, page * itemsPerPage, itemsPerPage);
+        }
+        return publicTrash.getSnapshot().getPage(view, sort, page, itemsPerPage);
+    }
+
+    /**
+     * 从数据库读取一页：按加入先后排序时从上一页最后一个ID之后查询，只读取这一页的行；
+     * 没有上一页的记录（如直接跳页）或按价格、数量排序时按偏移量查询；搜索结果不超过上限，在内存中排序
+     */
+    private List<TrashItem> getStoredPage(TrashView view, TrashSort sort, int page, int itemsPerPage) {
+        if (view.getType() == TrashView.Type.SEARCH) {
+            List<TrashItem> results = getSearchResults(view.getQuery());
+            int from = page * itemsPerPage;
+            if (results == null || from >= results.size()) {
+                return List.of();
+            }
+            List<TrashItem> sorted = new ArrayList<>(results);
+            sorted.sort(sort.comparator(this::getItemPrice));
+            return sorted.subList(from, Math.min(from + itemsPerPage, sorted.size()));
+        }
 
-        if (start >= publicTrashItems.size()) {
-            return new ArrayList<>();
+        if (sort != TrashSort.OLDEST && sort != TrashSort.NEWEST) {
+            return queryStore(store -> store.page(view, sort, page * itemsPerPage, itemsPerPage), List.of(),
+                    "读取公共垃圾桶物品时出错");
+        }
+        boolean newest = sort == TrashSort.NEWEST;
+        Long cursor = page == 0 ? (Long) (newest ? Long.MAX_VALUE : 0L)
+                : pageCursors.get(new PageKey(view, sort, page - 1, itemsPerPage));
+        List<TrashItem> items = queryStore(store -> cursor != null
+                ? store.pageAfter(view, newest, cursor, itemsPerPage)
+                : store.page(view, sort, page * itemsPerPage, itemsPerPage), List.of(), "读取公共垃圾桶物品时出错");
+        if (!items.isEmpty() && pageCursors.size() < MAX_CACHED_PAGES) {
+            pageCursors.put(new PageKey(view, sort, page, itemsPerPage), items.get(items.size() - 1).getId());
         }
+        return items;
+    }
 
-        return new ArrayList<>(publicTrashItems.subList(start, end));
+    /**
+     * 按名称、材质、Lore 搜索，不等待完成；结果按加入顺序排列，最多 {@link SearchIndex#MAX_RESULTS} 个，
+     * 搜索索引尚未建立时为 null。结果在写者线程（数据库后端为异步线程）上完成，并留给界面翻页使用
+     */
+    public CompletableFuture<List<TrashItem>> searchPublicTrash(String query) {
+        long version = getDataVersion();
+        CompletableFuture<List<TrashItem>> search = sqlStore != null
+                ? queryStoreAsync(store -> Collections.unmodifiableList(store.search(query, SearchIndex.MAX_RESULTS)),
+                null, "搜索公共垃圾桶时出错")
+                : publicTrash.search(query);
+        return search.handle((results, error) -> {
+            if (error != null) {
+                plugin.getLogger().log(Level.SEVERE, "搜索公共垃圾桶时出错", error);
+                return null;
+            }
+            if (results != null) {
+                if (searchResults.size() >= MAX_CACHED_SEARCHES) {
+                    searchResults.clear();
+                }
+                searchResults.put(query, new SearchResult(version, results));
+            }
+            return results;
+        });
+    }
+
+    /**
+     * 界面渲染用的搜索结果，不阻塞调用线程：数据变化后在后台重新搜索，完成前先返回上次的结果（没有时为 null），
+     * 结果有变化时通知界面更新
+     */
+    private List<TrashItem> getSearchResults(String query) {
+        SearchResult cached = searchResults.get(query);
+        if (cached != null && cached.version() == getDataVersion()) {
+            return cached.items();
+        }
+        if (searching.add(query)) {
+            CompletableFuture<List<TrashItem>> search = searchPublicTrash(query);
+            if (search.isDone()) {
+                searching.remove(query);
+            } else {
+                search.thenAccept(results -> {
+                    searching.remove(query);
+                    if (results != null && (cached == null || !sameItems(cached.items(), results))) {
+                        notifyChanged();
+                    }
+                });
+            }
+        }
+        SearchResult latest = searchResults.get(query);
+        return latest != null ? latest.items() : null;
+    }
+
+    private static boolean sameItems(List<TrashItem> a, List<TrashItem> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i).getId() != b.get(i).getId()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 数据版本：文件后端为已发布快照的序号，数据库后端为修改计数，搜索结果据此判断是否过期
+     */
+    private long getDataVersion() {
+        return sqlStore != null ? storedVersion : publicTrash.getSnapshot().getSequence();
+    }
+
+    /**
+     * 已发布的内存快照；使用数据库后端时为空，按页查询请使用 {@link #getPublicTrashItems(TrashView, TrashSort, int, int)}
+     */
+    public TrashSnapshot getPublicTrashSnapshot() {
+        return publicTrash.getSnapshot();
     }
 
     public int getTotalPages(int itemsPerPage) {
-        if (publicTrashItems.isEmpty() || itemsPerPage <= 0) {
+        return getTotalPages(TrashView.ALL, itemsPerPage);
+    }
+
+    public int getTotalPages(TrashView view, int itemsPerPage) {
+        int size = getPublicTrashSize(view);
+        if (size == 0 || itemsPerPage <= 0) {
             return 1;
         }
 
-        return (int) Math.ceil((double) publicTrashItems.size() / itemsPerPage);
+        return (int) Math.ceil((double) size / itemsPerPage);
+    }
+
+    /**
+     * 筛选范围内的物品数量（搜索结果最多 {@link SearchIndex#MAX_RESULTS} 个）
+     */
+    public int getPublicTrashSize(TrashView view) {
+        if (view.getType() == TrashView.Type.SEARCH) {
+            List<TrashItem> results = getSearchResults(view.getQuery());
+            return results == null ? 0 : results.size();
+        }
+        if (sqlStore != null) {
+            return queryStore(store -> store.count(view), 0, "读取公共垃圾桶物品时出错");
+        }
+        return publicTrash.getSnapshot().size(view);
     }
 
     public int getPublicTrashSize() {
-        return publicTrashItems.size();
+        return getPublicTrashSize(TrashView.ALL);
     }
 
-    // 硬代码不限数量存储
+    /**
+     * 是否已达到数量上限（达到后新物品仍可加入，但会按策略挤出旧物品）
+     */
     public boolean isPublicTrashFull() {
-        return false; // 永不限制
+        int maxItems = sqlStore != null ? config.getMaxItems() : publicTrash.getMaxItems();
+        return maxItems > 0 && getPublicTrashSize() >= maxItems;
+    }
+
+    /**
+     * 记录玩家看到了这些物品，供"最久未查看"移除策略使用
+     */
+    public void markViewed(List<TrashItem> items) {
+        if (sqlStore != null) {
+            return; // 数据库存储不记录查看顺序
+        }
+        publicTrash.markViewed(items);
+    }
+
+    /**
+     * 物品的回购价格：优先使用 /trashadmin setprice 设置的价格，其次使用配置中的价格
+     */
+    public double getItemPrice(TrashItem trashItem) {
+        if (trashItem.getCustomPrice() >= 0) {
+            return trashItem.getCustomPrice();
+        }
+        Double customPrice = getCustomPrice(trashItem.getItemType().toString());
+        if (customPrice != null) {
+            return customPrice * trashItem.getAmount();
+        }
+        return config.getPrice(trashItem.getItemType()) * trashItem.getAmount();
     }
 
     public void setCustomPrice(String material, double price) {
         customPrices.put(material.toUpperCase(), price);
+        pricesDirty = true;
+        refreshPrices();
+        flushIfImmediate();
+    }
+
+    /**
+     * 价格配置变化后更新按价格移除和按价格排序的索引
+     */
+    public void refreshPrices() {
+        if (sqlStore != null) {
+            queryStore(store -> {
+                store.setPrices(getUnitPrices(), config.getDefaultPrice());
+                return null;
+            }, null, "更新公共垃圾桶价格时出错");
+            displayVersion++;
+            storedChanged();
+            return;
+        }
+        publicTrash.reindex();
+        displayVersion++;
+        notifyChanged();
+    }
+
+    /**
+     * 设置了单价的材质（setprice 设置的价格优先于配置），未列出的材质使用默认价格
+     */
+    private Map<String, Double> getUnitPrices() {
+        Map<String, Double> prices = new HashMap<>(config.getCustomPrices());
+        prices.putAll(customPrices);
+        return prices;
+    }
+
+    private boolean isLowestPriceEviction() {
+        return EvictionPolicy.LOWEST_PRICE.equals(config.getEvictionPolicy());
+    }
+
+    private void archiveDropped(List<TrashItem> items, byte reason) {
+        if (config.isArchiveEnabled()) {
+            for (TrashItem item : items) {
+                archive.add(item, reason);
+            }
+        }
+    }
+
+    /**
+     * 访问数据库后端，出错时记录日志并返回 fallback
+     */
+    private <T> T queryStore(StoreQuery<T> query, T fallback, String error) {
+        SqlTrashStore store = sqlStore;
+        if (store == null) {
+            return fallback;
+        }
+        try {
+            return query.run(store);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, error, e);
+            return fallback;
+        }
+    }
+
+    /**
+     * 在异步线程上访问数据库后端，不阻塞游戏线程
+     */
+    private <T> CompletableFuture<T> queryStoreAsync(StoreQuery<T> query, T fallback, String error) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Bukkit.getAsyncScheduler().runNow(plugin, task -> result.complete(queryStore(query, fallback, error)));
+        return result;
+    }
+
+    /**
+     * 数据库后端的修改已提交：丢弃翻页起点，使搜索结果过期，通知界面更新
+     */
+    private void storedChanged() {
+        pageCursors.clear();
+        storedVersion++;
+        notifyChanged();
+    }
+
+    /**
+     * 设置公共垃圾桶变化的监听器（界面据此更新正在查看的页面），在写者线程上调用，须尽快返回
+     */
+    public void setChangeListener(Runnable listener) {
+        this.changeListener = listener;
+        publicTrash.setChangeListener(listener);
+    }
+
+    private void notifyChanged() {
+        Runnable listener = changeListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * 展示物品的版本号，价格或配置变化后改变
+     */
+    public int getDisplayVersion() {
+        return displayVersion;
     }
 
     public Double getCustomPrice(String material) {
@@ -175,6 +1052,10 @@ public class DataManager {
     }
 
     public void reload() {
+        // 先落盘内存中尚未写入的修改，再从文件重新加载
+        stopAutoSave();
+        saveData();
         loadData();
+        startAutoSave();
     }
 }
\ No newline at end of file
@@ -0,0 +1,241 @@
+package com.yei_bai.trashplugin;
+
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.ItemDespawnEvent;
+import org.bukkit.event.entity.ItemMergeEvent;
+import org.bukkit.event.entity.ItemSpawnEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 地面掉落物登记表：按世界和区块记录当前存在的掉落物实体，由事件维护
+ * 扫地时只遍历登记的掉落物，开销只和掉落物数量有关，与刷怪塔等其他实体的数量无关
+ * 掉落物按登记时所在的区块分组，之后漂移到其他区块时仍在原分组中，由扫地时检查所属线程处理
+ * Folia 上事件在各区域线程触发，所有结构都是并发的
+ */
+public class DroppedItemRegistry implements Listener {
+
+    // Folia 按区域分段（默认 16x16 区块）划分区域，同一分段内的区块总属于同一个区域线程
+    static final int REGION_SECTION_SHIFT = 4;
+
+    private record Entry(UUID worldId, long chunkKey) {
+    }
+
+    private final JavaPlugin plugin;
+    private final boolean isFolia;
+    private final Map<UUID, Map<Long, Set<Item>>> worlds = new ConcurrentHashMap<>();
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>(); // 实体UUID -> 所在分组
+
+    public DroppedItemRegistry(JavaPlugin plugin, boolean isFolia) {
+        this.plugin = plugin;
+        this.isFolia = isFolia;
+    }
+
+    static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    static int chunkX(long chunkKey) {
+        return (int) (chunkKey >> 32);
+    }
+
+    static int chunkZ(long chunkKey) {
+        return (int) chunkKey;
+    }
+
+    /**
+     * 区块所在的区域分段
+     */
+    static long sectionKey(long chunkKey) {
+        return chunkKey(chunkX(chunkKey) >> REGION_SECTION_SHIFT, chunkZ(chunkKey) >> REGION_SECTION_SHIFT);
+    }
+
+    /**
+     * 登记插件启用前已经存在的掉落物（Folia 上由各区域线程登记自己的区块）
+     */
+    public void seed() {
+        for (World world : Bukkit.getWorlds()) {
+            if (!isFolia) {
+                for (Item item : world.getEntitiesByClass(Item.class)) {
+                    register(item);
+                }
+                continue;
+            }
+
+            Map<Long, List<Chunk>> sections = new HashMap<>();
+            for (Chunk chunk : world.getLoadedChunks()) {
+                sections.computeIfAbsent(sectionKey(chunkKey(chunk.getX(), chunk.getZ())), key -> new ArrayList<>())
+                        .add(chunk);
+            }
+            for (List<Chunk> chunks : sections.values()) {
+                Chunk first = chunks.get(0);
+                Bukkit.getRegionScheduler().run(plugin, world, first.getX(), first.getZ(), task -> {
+                    for (Chunk chunk : chunks) {
+                        if (chunk.isLoaded() && Bukkit.isOwnedByCurrentRegion(world, chunk.getX(), chunk.getZ())) {
+                            registerAll(Arrays.asList(chunk.getEntities()));
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    public void register(Item item) {
+        Location location = item.getLocation();
+        UUID worldId = location.getWorld().getUID();
+        long key = chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+
+        Entry entry = new Entry(worldId, key);
+        Entry previous = entries.put(item.getUniqueId(), entry);
+        if (previous != null) {
+            if (previous.worldId().equals(worldId) && previous.chunkKey() == key) {
+                return;
+            }
+            removeFromBucket(previous, item);
+        }
+        worlds.computeIfAbsent(worldId, id -> new ConcurrentHashMap<>())
+                .compute(key, (k, items) -> {
+                    Set<Item> bucket = items != null ? items : ConcurrentHashMap.newKeySet();
+                    bucket.add(item);
+                    return bucket;
+                });
+
+        // 加入分组期间被并发注销（或重新登记到其他区块）时，注销方看不到刚加入的实体，由这里撤回
+        if (entries.get(item.getUniqueId()) != entry) {
+            removeFromBucket(entry, item);
+        }
+    }
+
+    public void unregister(Entity entity) {
+        Entry entry = entries.remove(entity.getUniqueId());
+        if (entry != null) {
+            removeFromBucket(entry, entity);
+        }
+    }
+
+    /**
+     * 某个世界中登记的掉落物，按登记时的区块分组（副本）
+     */
+    public Map<Long, List<Item>> snapshot(World world) {
+        Map<Long, Set<Item>> buckets = worlds.get(world.getUID());
+        Map<Long, List<Item>> copy = new HashMap<>();
+        if (buckets != null) {
+            buckets.forEach((key, items) -> {
+                List<Item> list = new ArrayList<>(items);
+                if (!list.isEmpty()) {
+                    copy.put(key, list);
+                }
+            });
+        }
+        return copy;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 某个世界中登记的掉落物数量
+     */
+    public int size(World world) {
+        Map<Long, Set<Item>> buckets = worlds.get(world.getUID());
+        int count = 0;
+        if (buckets != null) {
+            for (Set<Item> items : buckets.values()) {
+                count += items.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 某个世界中掉落物最多的区块的掉落物数量（按登记时的区块）
+     */
+    public int maxChunkDensity(World world) {
+        Map<Long, Set<Item>> buckets = worlds.get(world.getUID());
+        int max = 0;
+        if (buckets != null) {
+            for (Set<Item> items : buckets.values()) {
+                max = Math.max(max, items.size());
+            }
+        }
+        return max;
+    }
+
+    private void removeFromBucket(Entry entry, Entity entity) {
+        Map<Long, Set<Item>> buckets = worlds.get(entry.worldId());
+        if (buckets != null) {
+            // 分组为空时移除，与并发的登记在同一个键上原子完成
+            buckets.computeIfPresent(entry.chunkKey(), (key, items) -> {
+                items.remove(entity);
+                return items.isEmpty() ? null : items;
+            });
+        }
+    }
+
+    private void registerAll(Collection<? extends Entity> entities) {
+        for (Entity entity : entities) {
+            if (entity instanceof Item item && item.isValid()) {
+                register(item);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemSpawn(ItemSpawnEvent event) {
+        register(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        // 区块加载时其中已保存的掉落物重新进入世界
+        registerAll(event.getEntities());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityPickupItem(EntityPickupItemEvent event) {
+        // 只拾取了一部分时掉落物仍在地面上
+        if (event.getRemaining() <= 0) {
+            unregister(event.getItem());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemMerge(ItemMergeEvent event) {
+        // 合并后被合并的一方消失，目标仍在
+        unregister(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemDespawn(ItemDespawnEvent event) {
+        unregister(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityRemove(EntityRemoveFromWorldEvent event) {
+        // 兜底：任何原因离开世界（区块卸载、被杀死、插件移除等）都注销
+        if (event.getEntity() instanceof Item item) {
+            unregister(item);
+        }
+    }
+}
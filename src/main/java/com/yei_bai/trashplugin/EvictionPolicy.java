@@ -0,0 +1,173 @@
+package com.yei_bai.trashplugin;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 公共垃圾桶达到数量或容量上限时选择被移除物品的策略
+ * 只由 {@link PublicTrash} 的写者调用，内部索引无需线程安全
+ */
+public interface EvictionPolicy {
+
+    String OLDEST = "oldest";
+    String LOWEST_PRICE = "lowest-price";
+    String LEAST_VIEWED = "least-viewed";
+
+    void added(TrashItem item);
+
+    void removed(TrashItem item);
+
+    /**
+     * 物品出现在某个玩家打开的页面上
+     */
+    default void viewed(TrashItem item) {
+    }
+
+    default boolean tracksViews() {
+        return false;
+    }
+
+    /**
+     * 价格配置变化后更新物品的索引（只有按价格选择的策略需要）
+     */
+    default void repriced(TrashItem item) {
+    }
+
+    void clear();
+
+    /**
+     * 下一个应被移除的物品，垃圾桶为空时返回 null
+     */
+    TrashItem victim(PersistentSortedMap<Long, TrashItem> items);
+
+    static EvictionPolicy create(String name, ToDoubleFunction<TrashItem> priceFunction) {
+        return switch (name) {
+            case LOWEST_PRICE -> new LowestPrice(priceFunction);
+            case LEAST_VIEWED -> new LeastViewed();
+            default -> new Oldest();
+        };
+    }
+
+    /**
+     * 最早加入的先移除：ID递增，直接取ID最小的物品，无需额外索引
+     */
+    final class Oldest implements EvictionPolicy {
+
+        @Override
+        public void added(TrashItem item) {
+        }
+
+        @Override
+        public void removed(TrashItem item) {
+        }
+
+        @Override
+        public void clear() {
+        }
+
+        @Override
+        public TrashItem victim(PersistentSortedMap<Long, TrashItem> items) {
+            return items.isEmpty() ? null : items.getAt(0);
+        }
+    }
+
+    /**
+     * 按权重排序的索引，权重最小的先移除，权重相同时先移除较早加入的
+     */
+    abstract class Weighted implements EvictionPolicy {
+
+        private record Key(double weight, long id) implements Comparable<Key> {
+            @Override
+            public int compareTo(Key other) {
+                int cmp = Double.compare(weight, other.weight);
+                return cmp != 0 ? cmp : Long.compare(id, other.id);
+            }
+        }
+
+        private final TreeSet<Key> order = new TreeSet<>();
+        private final Map<Long, Key> keys = new HashMap<>();
+
+        protected abstract double weightOf(TrashItem item);
+
+        protected void update(TrashItem item) {
+            Key old = keys.get(item.getId());
+            if (old != null) {
+                order.remove(old);
+            }
+            Key key = new Key(weightOf(item), item.getId());
+            keys.put(item.getId(), key);
+            order.add(key);
+        }
+
+        @Override
+        public void added(TrashItem item) {
+            update(item);
+        }
+
+        @Override
+        public void removed(TrashItem item) {
+            Key key = keys.remove(item.getId());
+            if (key != null) {
+                order.remove(key);
+            }
+        }
+
+        @Override
+        public void clear() {
+            order.clear();
+            keys.clear();
+        }
+
+        @Override
+        public TrashItem victim(PersistentSortedMap<Long, TrashItem> items) {
+            return order.isEmpty() ? null : items.get(order.first().id());
+        }
+    }
+
+    /**
+     * 价格最低的先移除（价格在加入时计算，价格配置变化后由写者逐个更新）
+     */
+    final class LowestPrice extends Weighted {
+
+        private final ToDoubleFunction<TrashItem> priceFunction;
+
+        LowestPrice(ToDoubleFunction<TrashItem> priceFunction) {
+            this.priceFunction = priceFunction;
+        }
+
+        @Override
+        protected double weightOf(TrashItem item) {
+            return priceFunction.applyAsDouble(item);
+        }
+
+        @Override
+        public void repriced(TrashItem item) {
+            update(item);
+        }
+    }
+
+    /**
+     * 最久没有被玩家看到的先移除，刚加入的物品视为刚被看到
+     */
+    final class LeastViewed extends Weighted {
+
+        private long clock = 0;
+
+        @Override
+        protected double weightOf(TrashItem item) {
+            return clock++;
+        }
+
+        @Override
+        public void viewed(TrashItem item) {
+            update(item);
+        }
+
+        @Override
+        public boolean tracksViews() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.yei_bai.trashplugin;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * 文件后端：二进制快照 trash.dat + 追加写入的修改日志 trash.journal
+ */
+public class FileTrashStore implements TrashStore {
+
+    private final JavaPlugin plugin;
+    private final ConfigManager config;
+    private final File snapshotFile;
+    private final File journalFile;
+    private final TrashJournal journal;
+    private int journalRecordCount = 0; // 日志中尚未合并进快照的记录数
+    private boolean replayedOnLoad = false;
+
+    public FileTrashStore(JavaPlugin plugin, ConfigManager config) {
+        this.plugin = plugin;
+        this.config = config;
+        this.snapshotFile = new File(plugin.getDataFolder(), "trash.dat");
+        this.journalFile = new File(plugin.getDataFolder(), "trash.journal");
+        this.journal = new TrashJournal(journalFile);
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public boolean exists() {
+        return snapshotFile.exists();
+    }
+
+    @Override
+    public long load(List<TrashItem> target) throws IOException {
+        // 按ID索引以便重放删除记录
+        LinkedHashMap<Long, TrashItem> items = new LinkedHashMap<>();
+
+        long snapshotSequence = 0L;
+        if (snapshotFile.exists()) {
+            try {
+                List<TrashItem> loaded = new ArrayList<>();
+                snapshotSequence = TrashItemCodec.readSnapshot(snapshotFile.toPath(), loaded::add).getSequence();
+                for (TrashItem item : loaded) {
+                    items.put(item.getId(), item);
+                }
+            } catch (Exception e) {
+                // 快照已无法读取，移到一旁保留原数据，之后合并写出的新快照不会覆盖它
+                File corrupt = backupFile(snapshotFile);
+                Files.move(snapshotFile.toPath(), corrupt.toPath());
+                plugin.getLogger().log(Level.SEVERE, "读取公共垃圾桶数据文件时出错，原文件已移至 " + corrupt.getName(), e);
+            }
+        }
+
+        // 在快照基础上重放日志，跳过已合并进快照的记录
+        long baseSequence = snapshotSequence;
+        long[] lastSequence = {snapshotSequence};
+        int[] applied = {0};
+        try {
+            journal.replay(entry -> {
+                if (entry.getSequence() <= baseSequence) {
+                    return;
+                }
+                switch (entry.getOp()) {
+                    case TrashJournal.OP_ADD -> items.put(entry.getItem().getId(), entry.getItem());
+                    case TrashJournal.OP_REMOVE -> items.remove(entry.getItemId());
+                    case TrashJournal.OP_CLEAR -> items.clear();
+                }
+                lastSequence[0] = Math.max(lastSequence[0], entry.getSequence());
+                applied[0]++;
+            });
+        } catch (IOException e) {
+            // 出错位置之后的记录会在下次合并时被清空，先复制一份完整日志（日志本身仍需保留到合并，不能移走）
+            File corrupt = backupFile(journalFile);
+            Files.copy(journalFile.toPath(), corrupt.toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+            plugin.getLogger().log(Level.WARNING, "重放数据日志时出错，已保留出错前的记录，完整日志已备份为 "
+                    + corrupt.getName(), e);
+        }
+
+        target.addAll(items.values());
+        journalRecordCount = applied[0];
+        replayedOnLoad = applied[0] > 0;
+        if (applied[0] > 0) {
+            plugin.getLogger().info("已重放数据日志 " + applied[0] + " 条");
+        }
+        return lastSequence[0];
+    }
+
+    @Override
+    public void append(List<TrashJournal.Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        journal.append(entries);
+        journalRecordCount += entries.size();
+    }
+
+    @Override
+    public boolean needsCompaction() {
+        // 启动时重放过日志也会触发，保持下次启动快速
+        return replayedOnLoad
+                || journalRecordCount >= config.getJournalMaxRecords()
+                || journal.size() >= config.getJournalMaxBytes();
+    }
+
+    /**
+     * 先写快照再清空日志；两步之间崩溃时，快照头中的日志序号可避免重复重放
+     */
+    @Override
+    public void compact(List<TrashItem> snapshot, long sequence) throws IOException {
+        TrashItemCodec.writeSnapshot(snapshotFile.toPath(), snapshot, snapshot.size(), sequence);
+        journal.truncate();
+        journalRecordCount = 0;
+        replayedOnLoad = false;
+    }
+
+    /**
+     * 损坏文件的备份位置：原文件名.corrupt-时间戳
+     */
+    private File backupFile(File file) {
+        return new File(file.getParentFile(), file.getName() + ".corrupt-" + System.currentTimeMillis());
+    }
+
+    @Override
+    public void close() {
+        // 每次写入都会关闭文件，无需额外处理
+    }
+}
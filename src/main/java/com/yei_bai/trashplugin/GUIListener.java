@@ -1,21 +1,25 @@
 package com.yei_bai.trashplugin;
 
-import org.bukkit.ChatColor;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryAction;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.Inventory;
-import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 @SuppressWarnings("ALL")
 public class GUIListener implements Listener {
@@ -25,6 +29,8 @@ public class GUIListener implements Listener {
     private final MessageManager messages;
     private final DataManager dataManager;
     private final EconomyManager economyManager;
+    private final Map<PublicTrashSlot, BiConsumer<InventoryClickEvent, Player>> publicSlotHandlers =
+            new EnumMap<>(PublicTrashSlot.class);
 
     public GUIListener() {
         this.plugin = TrashPlugin.getInstance();
@@ -32,123 +38,135 @@ public class GUIListener implements Listener {
         this.messages = plugin.getMessageManager();
         this.dataManager = plugin.getDataManager();
         this.economyManager = plugin.getEconomyManager();
+
+        // 公共垃圾桶各类格子的处理方法，装饰和页码信息只取消点击
+        publicSlotHandlers.put(PublicTrashSlot.ITEM, this::handleItemClick);
+        publicSlotHandlers.put(PublicTrashSlot.PREVIOUS_PAGE, (event, player) -> handlePreviousPageClick(player));
+        publicSlotHandlers.put(PublicTrashSlot.NEXT_PAGE, (event, player) -> handleNextPageClick(player));
+        publicSlotHandlers.put(PublicTrashSlot.FILTER, (event, player) -> handleFilterClick(player, event.getCursor()));
+        publicSlotHandlers.put(PublicTrashSlot.MINE, (event, player) -> handleMineClick(player));
+        publicSlotHandlers.put(PublicTrashSlot.SORT, (event, player) -> plugin.getPublicTrashGUI().cycleSort(player));
     }
 
-    @SuppressWarnings("deprecation")
     @EventHandler(priority = EventPriority.HIGH)
     public void onInventoryClick(InventoryClickEvent event) {
         if (!(event.getWhoClicked() instanceof Player player)) {
             return;
         }
 
-        InventoryView view = event.getView();
-        String title = ChatColor.stripColor(view.getTitle());
+        // 按界面持有者识别，个人垃圾桶允许所有操作，只在关闭时转移物品
+        if (event.getView().getTopInventory().getHolder(false) instanceof PublicTrashPage) {
+            handlePublicTrashClick(event, player);
+        }
+    }
 
-        // 检查是否为个人垃圾桶
-        String personalTitle = ChatColor.stripColor(ChatColor.translateAlternateColorCodes('&',
-                config.getPersonalTitle()));
+    private void handlePublicTrashClick(InventoryClickEvent event, Player player) {
+        int slot = event.getRawSlot();
 
-        if (title.equals(personalTitle)) {
-            handlePersonalTrashClick(event, player);
+        if (slot >= event.getView().getTopInventory().getSize()) {
+            // 在自己背包中点击：允许整理，但不允许移入界面或从界面中收集物品
+            if (event.isShiftClick() || event.getAction() == InventoryAction.COLLECT_TO_CURSOR) {
+                event.setCancelled(true);
+            }
             return;
         }
 
-        // 检查是否为公共垃圾桶
-        String publicTitle = ChatColor.stripColor(ChatColor.translateAlternateColorCodes('&',
-                config.getPublicTitle()));
-
-        if (title.startsWith(publicTitle)) {
-            handlePublicTrashClick(event, player, view);
+        // 界面中的格子都不允许放入或取出，按预先算好的格子用途分派
+        event.setCancelled(true);
+        PublicTrashSlot type = config.getPublicSlot(slot);
+        BiConsumer<InventoryClickEvent, Player> handler = type != null ? publicSlotHandlers.get(type) : null;
+        if (handler != null) {
+            handler.accept(event, player);
         }
     }
 
-    private void handlePersonalTrashClick(InventoryClickEvent event, Player player) {
-        // 个人垃圾桶允许所有操作
-        // 玩家可以自由放入、取出、移动物品
-        // 只在关闭时转移物品到公共垃圾桶
-
-        // 不阻止任何点击操作
-        // 允许玩家自由操作
+    private void handleItemClick(InventoryClickEvent event, Player player) {
+        if (event.isRightClick()) {
+            // 右键只看同材质物品
+            handleItemFilterClick(player, event.getCurrentItem());
+        } else {
+            // 在物品区域点击，直接购买
+            handleDirectBuy(player, event.getCurrentItem());
+        }
     }
 
-    private void handlePublicTrashClick(InventoryClickEvent event, Player player, InventoryView view) {
-        int slot = event.getRawSlot();
-
-        // 检查是否点击了控制按钮
-        if (slot == config.getPreviousPageSlot()) {
-            // 上一页按钮
-            event.setCancelled(true);
-            handlePreviousPageClick(player, view);
-            return;
-        } else if (slot == config.getNextPageSlot()) {
-            // 下一页按钮
-            event.setCancelled(true);
-            handleNextPageClick(player, view);
+    private void handleFilterClick(Player player, ItemStack cursor) {
+        PublicTrashGUI publicTrashGUI = plugin.getPublicTrashGUI();
+        if (cursor == null || cursor.getType() == Material.AIR) {
+            // 空手点击取消筛选
+            publicTrashGUI.openGUI(player, 0, TrashView.ALL);
             return;
         }
 
-        // 移除购买按钮的逻辑，现在直接点击物品购买
-        // 检查是否点击了装饰物品
-        if (event.getCurrentItem() != null) {
-            Material decorationMaterial = Material.valueOf(config.getPublicDecorationMaterial());
-            if (event.getCurrentItem().getType() == decorationMaterial) {
-                event.setCancelled(true);
-                return;
-            }
-        }
+        // 打开新页面前先把光标上的物品放回背包，避免被界面关闭时丢出
+        ItemStack held = cursor.clone();
+        player.setItemOnCursor(null);
+        player.getInventory().addItem(held).values()
+                .forEach(left -> player.getWorld().dropItemNaturally(player.getLocation(), left));
+        publicTrashGUI.openGUI(player, 0, TrashView.material(held.getType()));
+    }
 
-        // 检查是否在物品区域
-        int itemsPerPage = config.getItemsPerPage();
-        int startSlot = 0;
-        int endSlot = itemsPerPage - 1;
+    private void handleMineClick(Player player) {
+        PublicTrashGUI publicTrashGUI = plugin.getPublicTrashGUI();
+        if (publicTrashGUI.getView(player).isOwnedBy(player.getUniqueId())) {
+            publicTrashGUI.openGUI(player, 0, TrashView.ALL);
+        } else {
+            publicTrashGUI.openGUI(player, 0, TrashView.owner(player.getUniqueId(), player.getName()));
+        }
+    }
 
-        if (slot >= startSlot && slot <= endSlot) {
-            // 在物品区域点击，直接购买
-            event.setCancelled(true);
-            handleDirectBuy(player, view, slot);
+    private void handleItemFilterClick(Player player, ItemStack clicked) {
+        PublicTrashGUI publicTrashGUI = plugin.getPublicTrashGUI();
+        if (publicTrashGUI.getItemId(clicked) <= 0) {
+            return;
         }
+        publicTrashGUI.openGUI(player, 0, TrashView.material(clicked.getType()));
     }
 
-    private void handlePreviousPageClick(Player player, InventoryView view) {
+    private void handlePreviousPageClick(Player player) {
         // 获取当前页码
-        int currentPage = getCurrentPage(view);
+        int currentPage = getCurrentPage(player);
         if (currentPage <= 0) {
             player.sendMessage(messages.getMessage("gui.already-first-page"));
             return;
         }
 
-        // 打开上一页
+        // 翻到上一页（独自查看时原地改写界面）
         PublicTrashGUI publicTrashGUI = plugin.getPublicTrashGUI();
         publicTrashGUI.openGUI(player, currentPage - 1);
     }
 
-    private void handleNextPageClick(Player player, InventoryView view) {
+    private void handleNextPageClick(Player player) {
         // 获取当前页码
-        int currentPage = getCurrentPage(view);
-        int totalPages = dataManager.getTotalPages(config.getItemsPerPage());
+        int currentPage = getCurrentPage(player);
+        PublicTrashGUI publicTrashGUI = plugin.getPublicTrashGUI();
+        int totalPages = dataManager.getTotalPages(publicTrashGUI.getView(player), config.getItemsPerPage());
 
         if (currentPage >= totalPages - 1) {
             player.sendMessage(messages.getMessage("gui.already-last-page"));
             return;
         }
 
-        // 打开下一页
-        PublicTrashGUI publicTrashGUI = plugin.getPublicTrashGUI();
+        // 翻到下一页（独自查看时原地改写界面）
         publicTrashGUI.openGUI(player, currentPage + 1);
     }
 
-    private void handleDirectBuy(Player player, InventoryView view, int slot) {
-        // 获取选中的物品索引
-        int page = getCurrentPage(view);
-        int itemIndex = slot + (page * config.getItemsPerPage());
-        List<TrashItem> allItems = dataManager.getPublicTrashItems();
-
-        if (itemIndex < 0 || itemIndex >= allItems.size()) {
+    private void handleDirectBuy(Player player, ItemStack clicked) {
+        // 按展示物品上记录的ID定位，页面打开后其他玩家的增删不会导致买错物品
+        PublicTrashGUI publicTrashGUI = plugin.getPublicTrashGUI();
+        long itemId = publicTrashGUI.getItemId(clicked);
+        if (itemId <= 0) {
             player.sendMessage(messages.getMessage("item.invalid-item"));
             return;
         }
 
-        TrashItem trashItem = allItems.get(itemIndex);
+        TrashItem trashItem = dataManager.getPublicTrashItem(itemId);
+        if (trashItem == null) {
+            // 物品已被他人买走或被清理，刷新页面
+            player.sendMessage(messages.getMessage("item.invalid-item"));
+            publicTrashGUI.refresh(player);
+            return;
+        }
 
         // 检查经济系统
         if (!economyManager.isEnabled()) {
@@ -157,7 +175,7 @@ public class GUIListener implements Listener {
         }
 
         // 检查玩家金币
-        double price = trashItem.getPrice();
+        double price = dataManager.getItemPrice(trashItem); // 与界面显示一致，包含 setprice 设置的价格
         if (!economyManager.hasEnoughMoney(player, price)) {
             Map<String, String> replacements = new HashMap<>();
             replacements.put("price", String.format("%.1f", price));
@@ -171,43 +189,33 @@ public class GUIListener implements Listener {
             return;
         }
 
+        // 先从公共垃圾桶移除，确保同一物品只能被买走一次
+        if (dataManager.removePublicTrashItem(itemId) == null) {
+            player.sendMessage(messages.getMessage("item.invalid-item"));
+            publicTrashGUI.refresh(player);
+            return;
+        }
+
         // 扣款
         economyManager.takeMoney(player, price);
 
         // 给玩家物品
-        ItemStack item = trashItem.getItemStack().clone();
+        ItemStack item = trashItem.getItemStack();
         player.getInventory().addItem(item);
 
-        // 从公共垃圾桶移除
-        dataManager.removePublicTrashItem(itemIndex);
-
         // 发送消息
         Map<String, String> replacements = new HashMap<>();
         replacements.put("price", String.format("%.1f", price));
         player.sendMessage(messages.getMessage("item.buy-success", replacements));
 
-        // 刷新GUI
-        PublicTrashGUI publicTrashGUI = plugin.getPublicTrashGUI();
-        publicTrashGUI.openGUI(player, page);
+        // 立即更新本页，其他查看者的页面在下一刻统一更新
+        publicTrashGUI.refresh(player);
     }
 
-    @SuppressWarnings("deprecation")
-    private int getCurrentPage(InventoryView view) {
-        // 从GUI标题获取页码
-        String title = view.getTitle();
-        String pageText = ChatColor.stripColor(title);
-
-        if (pageText.contains("(") && pageText.contains(")")) {
-            try {
-                int start = pageText.indexOf("(") + 1;
-                int end = pageText.indexOf(")");
-                String pageStr = pageText.substring(start, end).split("/")[0].trim();
-                return Integer.parseInt(pageStr) - 1;
-            } catch (Exception e) {
-                return 0;
-            }
-        }
-        return 0;
+    private int getCurrentPage(Player player) {
+        // 页码记录在服务端的页面登记中，不再从标题解析
+        PublicTrashPage page = plugin.getPublicTrashGUI().getOpenPage(player);
+        return page != null ? page.getPage() : 0;
     }
 
     @EventHandler
@@ -216,32 +224,13 @@ public class GUIListener implements Listener {
             return;
         }
 
-        InventoryView view = event.getView();
-        String title = ChatColor.stripColor(view.getTitle());
-
-        // 检查是否为垃圾桶GUI
-        String personalTitle = ChatColor.stripColor(ChatColor.translateAlternateColorCodes('&',
-                config.getPersonalTitle()));
-        String publicTitle = ChatColor.stripColor(ChatColor.translateAlternateColorCodes('&',
-                config.getPublicTitle()));
-
-        if (title.equals(personalTitle) || title.startsWith(publicTitle)) {
-            // 个人垃圾桶允许拖拽
-            if (title.equals(personalTitle)) {
-                return; // 允许所有拖拽操作
-            }
-
-            // 公共垃圾桶检查是否拖拽到装饰物品上
+        // 个人垃圾桶允许拖拽；公共垃圾桶不允许拖入界面中的任何格子
+        Inventory top = event.getView().getTopInventory();
+        if (top.getHolder(false) instanceof PublicTrashPage) {
             for (int slot : event.getRawSlots()) {
-                if (slot < view.getTopInventory().getSize()) {
-                    ItemStack item = view.getTopInventory().getItem(slot);
-                    if (item != null) {
-                        Material decorationMaterial = Material.valueOf(config.getPublicDecorationMaterial());
-                        if (item.getType() == decorationMaterial) {
-                            event.setCancelled(true);
-                            return;
-                        }
-                    }
+                if (slot < top.getSize()) {
+                    event.setCancelled(true);
+                    return;
                 }
             }
         }
@@ -253,25 +242,21 @@ public class GUIListener implements Listener {
             return;
         }
 
-        InventoryView view = event.getView();
-        String title = ChatColor.stripColor(view.getTitle());
-
-        // 检查是否为个人垃圾桶
-        String personalTitle = ChatColor.stripColor(ChatColor.translateAlternateColorCodes('&',
-                config.getPersonalTitle()));
-
-        if (title.equals(personalTitle)) {
-            Inventory inventory = view.getTopInventory();
+        Inventory inventory = event.getView().getTopInventory();
+        InventoryHolder holder = inventory.getHolder(false);
 
-            // 将所有物品转移到公共垃圾桶
-            int transferredCount = 0;
+        if (holder instanceof PublicTrashPage) {
+            // 公共垃圾桶：注销查看者
+            plugin.getPublicTrashGUI().handleClose(player, inventory);
+        } else if (holder instanceof PersonalTrashHolder) {
+            // 将所有物品批量转移到公共垃圾桶
+            List<ItemStack> items = new ArrayList<>();
             for (ItemStack item : inventory.getContents()) {
                 if (item != null && item.getType() != Material.AIR) {
-                    // 添加到公共垃圾桶
-                    dataManager.addPublicTrashItem(item, player.getName());
-                    transferredCount++;
+                    items.add(item);
                 }
             }
+            int transferredCount = dataManager.addPublicTrashItems(items, player.getName(), player.getUniqueId());
 
             // 清空个人垃圾桶
             inventory.clear();
@@ -281,4 +266,9 @@ public class GUIListener implements Listener {
             }
         }
     }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        plugin.getPublicTrashGUI().forget(event.getPlayer());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,346 @@
+package com.yei_bai.trashplugin;
+
+import java.util.*;
+
+/**
+ * 不可变的有序映射（带子树大小的重量平衡树）
+ * 每次修改只复制根到目标节点路径上的 O(log n) 个节点，其余节点与旧版本共享；
+ * 旧版本保持不变，可以在任意线程上无锁读取。子树大小用于按位置（第几个）查找和分页
+ */
+public final class PersistentSortedMap<K, V> {
+
+    private static final int DELTA = 3;
+    private static final int RATIO = 2;
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final Node<K, V> left;
+        final Node<K, V> right;
+        final int size;
+
+        Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private final Comparator<? super K> comparator;
+    private final Node<K, V> root;
+
+    private PersistentSortedMap(Comparator<? super K> comparator, Node<K, V> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    public static <K, V> PersistentSortedMap<K, V> empty(Comparator<? super K> comparator) {
+        return new PersistentSortedMap<>(comparator, null);
+    }
+
+    /**
+     * 由已按键排好序的列表一次性构建，O(n)
+     */
+    public static <K, V> PersistentSortedMap<K, V> fromSorted(Comparator<? super K> comparator,
+                                                              List<K> keys, List<V> values) {
+        return new PersistentSortedMap<>(comparator, build(keys, values, 0, keys.size()));
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public V get(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(key, node.key);
+            if (cmp == 0) {
+                return node.value;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    public PersistentSortedMap<K, V> put(K key, V value) {
+        return new PersistentSortedMap<>(comparator, insert(root, key, value));
+    }
+
+    public PersistentSortedMap<K, V> remove(K key) {
+        Node<K, V> newRoot = delete(root, key);
+        return newRoot == root ? this : new PersistentSortedMap<>(comparator, newRoot);
+    }
+
+    /**
+     * 按位置取值（从0开始），O(log n)
+     */
+    public V getAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node<K, V> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * 从指定位置开始按顺序取最多 count 个值，O(log n + count)
+     */
+    public List<V> range(int from, int count) {
+        if (from < 0 || from >= size() || count <= 0) {
+            return List.of();
+        }
+        List<V> result = new ArrayList<>(Math.min(count, size() - from));
+        Iterator<V> iterator = iteratorFrom(from);
+        while (iterator.hasNext() && result.size() < count) {
+            result.add(iterator.next());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 从倒数第 from 个位置开始按逆序取最多 count 个值，O(log n + count)
+     */
+    public List<V> rangeDescending(int from, int count) {
+        if (from < 0 || from >= size() || count <= 0) {
+            return List.of();
+        }
+        List<V> result = new ArrayList<>(Math.min(count, size() - from));
+        Iterator<V> iterator = descendingIteratorFrom(from);
+        while (iterator.hasNext() && result.size() < count) {
+            result.add(iterator.next());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 按键顺序的只读值视图，按位置访问为 O(log n)，顺序遍历为 O(n)
+     */
+    public List<V> values() {
+        return new AbstractList<>() {
+            @Override
+            public V get(int index) {
+                return getAt(index);
+            }
+
+            @Override
+            public int size() {
+                return PersistentSortedMap.this.size();
+            }
+
+            @Override
+            public Iterator<V> iterator() {
+                return iteratorFrom(0);
+            }
+        };
+    }
+
+    /**
+     * 从指定位置开始的中序遍历迭代器
+     */
+    public Iterator<V> iteratorFrom(int from) {
+        Deque<Node<K, V>> stack = new ArrayDeque<>();
+        Node<K, V> node = root;
+        int index = from;
+        // 沿查找路径压入所有位置不小于 from 的祖先
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                stack.push(node);
+                node = node.left;
+            } else if (index == leftSize) {
+                stack.push(node);
+                break;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public V next() {
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node<K, V> current = stack.pop();
+                Node<K, V> next = current.right;
+                while (next != null) {
+                    stack.push(next);
+                    next = next.left;
+                }
+                return current.value;
+            }
+        };
+    }
+
+    /**
+     * 从倒数第 from 个位置开始的逆序遍历迭代器
+     */
+    public Iterator<V> descendingIteratorFrom(int from) {
+        Deque<Node<K, V>> stack = new ArrayDeque<>();
+        Node<K, V> node = root;
+        int index = size() - 1 - from;
+        // 沿查找路径压入所有位置不大于目标位置的祖先
+        while (node != null && index >= 0) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                stack.push(node);
+                break;
+            } else {
+                stack.push(node);
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public V next() {
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                Node<K, V> current = stack.pop();
+                Node<K, V> next = current.left;
+                while (next != null) {
+                    stack.push(next);
+                    next = next.right;
+                }
+                return current.value;
+            }
+        };
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <K, V> Node<K, V> build(List<K> keys, List<V> values, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        return new Node<>(keys.get(mid), values.get(mid), build(keys, values, from, mid), build(keys, values, mid + 1, to));
+    }
+
+    private Node<K, V> insert(Node<K, V> node, K key, V value) {
+        if (node == null) {
+            return new Node<>(key, value, null, null);
+        }
+        int cmp = comparator.compare(key, node.key);
+        if (cmp < 0) {
+            return balance(node.key, node.value, insert(node.left, key, value), node.right);
+        } else if (cmp > 0) {
+            return balance(node.key, node.value, node.left, insert(node.right, key, value));
+        }
+        return new Node<>(key, value, node.left, node.right);
+    }
+
+    private Node<K, V> delete(Node<K, V> node, K key) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = comparator.compare(key, node.key);
+        if (cmp < 0) {
+            Node<K, V> left = delete(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        } else if (cmp > 0) {
+            Node<K, V> right = delete(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        return glue(node.left, node.right);
+    }
+
+    private Node<K, V> glue(Node<K, V> left, Node<K, V> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.size > right.size) {
+            Node<K, V> max = left;
+            while (max.right != null) {
+                max = max.right;
+            }
+            return balance(max.key, max.value, deleteMax(left), right);
+        }
+        Node<K, V> min = right;
+        while (min.left != null) {
+            min = min.left;
+        }
+        return balance(min.key, min.value, left, deleteMin(right));
+    }
+
+    private Node<K, V> deleteMin(Node<K, V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, deleteMin(node.left), node.right);
+    }
+
+    private Node<K, V> deleteMax(Node<K, V> node) {
+        if (node.right == null) {
+            return node.left;
+        }
+        return balance(node.key, node.value, node.left, deleteMax(node.right));
+    }
+
+    private Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        int leftSize = size(left);
+        int rightSize = size(right);
+        if (leftSize + rightSize <= 1) {
+            return new Node<>(key, value, left, right);
+        }
+        if (rightSize > DELTA * leftSize) {
+            // 右侧过重，左旋
+            if (size(right.left) < RATIO * size(right.right)) {
+                return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+            }
+            Node<K, V> rl = right.left;
+            return new Node<>(rl.key, rl.value, new Node<>(key, value, left, rl.left),
+                    new Node<>(right.key, right.value, rl.right, right.right));
+        }
+        if (leftSize > DELTA * rightSize) {
+            // 左侧过重，右旋
+            if (size(left.right) < RATIO * size(left.left)) {
+                return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+            }
+            Node<K, V> lr = left.right;
+            return new Node<>(lr.key, lr.value, new Node<>(left.key, left.value, left.left, lr.left),
+                    new Node<>(key, value, lr.right, right));
+        }
+        return new Node<>(key, value, left, right);
+    }
+}
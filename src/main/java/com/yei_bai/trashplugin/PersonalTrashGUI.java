@@ -1,6 +1,5 @@
 package com.yei_bai.trashplugin;
 
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
@@ -28,7 +27,7 @@ public class PersonalTrashGUI {
         int size = rows * 9;
         String title = ChatColor.translateAlternateColorCodes('&', config.getPersonalTitle());
 
-        Inventory gui = Bukkit.createInventory(null, size, title);
+        Inventory gui = new PersonalTrashHolder(size, title).getInventory();
 
         // 不再填充装饰物品，GUI初始为空
         // 玩家可以自由放入物品
@@ -0,0 +1,23 @@
+package com.yei_bai.trashplugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * 个人垃圾桶界面的持有者，监听器据此识别界面，不再比较标题
+ */
+public class PersonalTrashHolder implements InventoryHolder {
+
+    private final Inventory inventory;
+
+    public PersonalTrashHolder(int size, String title) {
+        this.inventory = Bukkit.createInventory(this, size, title);
+    }
+
+    @Override
+    public @NotNull Inventory getInventory() {
+        return inventory;
+    }
+}
@@ -0,0 +1,696 @@
+package com.yei_bai.trashplugin;
+
+import org.bukkit.Material;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.logging.Level;
+
+/**
+ * 公共垃圾桶内存数据（单写者模型）
+ * Folia 的区域线程、玩家所属线程等只把修改放入无锁队列；抢到写权限的线程按顺序应用队列中的全部修改，
+ * 分配ID和记录序号，然后发布新的不可变快照。读取方只读取已发布的快照，不需要加锁
+ * 数据保存在持久化有序树中，每次修改 O(log n)，发布快照 O(1)
+ * 配置了数量或容量上限时，每次加入后按移除策略逐个移除超出部分
+ * 设置了保留时间的物品按到期时间排序索引，到期检查只处理已到期的物品
+ * 另按材质和丢弃者UUID各维护一组有序树，供筛选分页和按丢弃者批量操作
+ * 价格和数量排序各有一棵以 (值, ID) 为键的有序树，按排序方式分页为 O(log n + 每页数量)
+ * 搜索索引在加载后由异步线程预先计算检索文本再一次性建立，之后随修改增量维护
+ */
+public class PublicTrash {
+
+    private static final long WAIT_TIMEOUT_SECONDS = 30; // 等待写者处理修改的最长时间
+
+    private final JavaPlugin plugin;
+    private final ConfigManager config;
+    private final Consumer<TrashJournal.Entry> recorder; // 修改记录交给持久化队列，只在写者线程上调用
+    private final DropListener dropListener;             // 到期、挤出、清空的物品交给归档，只在写者线程上调用
+
+    private final ConcurrentLinkedQueue<Mutation> mutations = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writing = new AtomicBoolean(false);
+    private volatile Thread writer = null; // 持有写权限的线程
+    private volatile TrashSnapshot snapshot = TrashSnapshot.EMPTY;
+
+    // 以下字段只由持有写权限的线程访问
+    private PersistentSortedMap<Long, TrashItem> items = PersistentSortedMap.empty(Comparator.naturalOrder());
+    private final EnumMap<Material, PersistentSortedMap<Long, TrashItem>> byMaterial = new EnumMap<>(Material.class);
+    private Map<Material, PersistentSortedMap<Long, TrashItem>> publishedMaterials = Collections.emptyMap();
+    private boolean materialsChanged = false;
+    private PersistentSortedMap<UUID, PersistentSortedMap<Long, TrashItem>> byOwner =
+            PersistentSortedMap.empty(Comparator.naturalOrder());
+    // 丢弃者名称缓存（小写名称 -> UUID，UUID -> 最近使用的名称），供管理命令按名称查找，离线玩家无需查询服务端
+    private final Map<String, UUID> ownerIdsByName = new ConcurrentHashMap<>();
+    private final Map<UUID, String> ownerNames = new ConcurrentHashMap<>();
+    private PersistentSortedMap<SortKey, TrashItem> byPrice = PersistentSortedMap.empty(Comparator.naturalOrder());
+    private PersistentSortedMap<SortKey, TrashItem> byAmount = PersistentSortedMap.empty(Comparator.naturalOrder());
+    private final Map<Long, SortKey> priceKeys = new HashMap<>(); // 加入索引时的价格键，价格变化后仍能准确删除
+    private ToDoubleFunction<TrashItem> priceFunction = TrashItem::getPrice;
+    private SearchIndex searchIndex = null;             // 尚未建立时为 null
+    private volatile boolean searchReady = false;
+    private volatile Runnable changeListener;
+    private boolean dirty = false; // 有尚未发布的修改
+    private long nextId = 1;
+    private long nextSequence = 1;
+    private long totalBytes = 0;
+    private int maxItems = 0;       // 0表示不限
+    private long maxBytes = 0;      // 0表示不限
+    private EvictionPolicy policy = new EvictionPolicy.Oldest();
+    private volatile boolean tracksViews = false;
+    private ToLongFunction<TrashItem> ttl = item -> 0L; // 保留时长（毫秒），0表示永久保留
+    private final TreeSet<ExpiryKey> expiry = new TreeSet<>();
+    private volatile long nextExpiry = Long.MAX_VALUE;   // 最早的到期时间，供到期检查无锁判断
+
+    private record ExpiryKey(long expireAt, long id) implements Comparable<ExpiryKey> {
+        @Override
+        public int compareTo(ExpiryKey other) {
+            int cmp = Long.compare(expireAt, other.expireAt);
+            return cmp != 0 ? cmp : Long.compare(id, other.id);
+        }
+    }
+
+    /**
+     * 排序索引的键：排序值相同时按ID（加入顺序）排序
+     */
+    record SortKey(double value, long id) implements Comparable<SortKey> {
+        @Override
+        public int compareTo(SortKey other) {
+            int cmp = Double.compare(value, other.value);
+            return cmp != 0 ? cmp : Long.compare(id, other.id);
+        }
+    }
+
+    public PublicTrash(JavaPlugin plugin, ConfigManager config, Consumer<TrashJournal.Entry> recorder,
+                       DropListener dropListener) {
+        this.plugin = plugin;
+        this.config = config;
+        this.recorder = recorder;
+        this.dropListener = dropListener;
+    }
+
+    /**
+     * 物品不是被购买、而是被系统移出时的回调
+     */
+    public interface DropListener {
+        void dropped(TrashItem item, byte reason);
+    }
+
+    /**
+     * 一次修改操作，由写者在独占状态下执行
+     */
+    private interface Mutation {
+        void apply();
+
+        /**
+         * 是否可能改变快照内容，只读的操作（查询、记录查看等）不需要发布新快照
+         */
+        default boolean modifies() {
+            return true;
+        }
+    }
+
+    /**
+     * 需要等待结果的修改，由写者在独占状态下执行
+     */
+    private interface Query<T> {
+        T apply();
+
+        default boolean modifies() {
+            return true;
+        }
+    }
+
+    public TrashSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 加入物品（分配ID），不等待写入完成
+     */
+    public void add(List<TrashItem> trashItems) {
+        submit(() -> {
+            for (TrashItem trashItem : trashItems) {
+                trashItem.setId(nextId++);
+                items = items.put(trashItem.getId(), trashItem);
+                indexMaterial(trashItem);
+                indexOwner(trashItem);
+                indexSort(trashItem);
+                if (searchIndex != null) {
+                    searchIndex.add(trashItem);
+                }
+                totalBytes += trashItem.getEstimatedSize();
+                policy.added(trashItem);
+                indexExpiry(trashItem);
+                recorder.accept(TrashJournal.Entry.add(nextSequence++, trashItem));
+            }
+            evictOverflow();
+        });
+    }
+
+    /**
+     * 按ID删除物品并等待结果；物品已不存在时返回 null
+     */
+    public TrashItem remove(long id) {
+        return submitAndWait(() -> {
+            TrashItem removed = items.get(id);
+            if (removed != null) {
+                removeEntry(removed);
+            }
+            return removed;
+        });
+    }
+
+    public void clear() {
+        submit(() -> {
+            for (TrashItem item : items.values()) {
+                dropListener.dropped(item, ColdArchive.REASON_CLEARED);
+            }
+            items = PersistentSortedMap.empty(Comparator.naturalOrder());
+            byMaterial.clear();
+            materialsChanged = true;
+            byOwner = PersistentSortedMap.empty(Comparator.naturalOrder());
+            byPrice = PersistentSortedMap.empty(Comparator.naturalOrder());
+            byAmount = PersistentSortedMap.empty(Comparator.naturalOrder());
+            priceKeys.clear();
+            if (searchIndex != null) {
+                searchIndex.clear();
+            }
+            totalBytes = 0;
+            policy.clear();
+            expiry.clear();
+            recorder.accept(TrashJournal.Entry.clear(nextSequence++));
+        });
+    }
+
+    /**
+     * 用加载的数据替换全部内容并等待完成，返回是否为旧数据补发了ID（需要合并写回存储）
+     *
+     * @param onApply 在写者线程上、替换之前执行（用于丢弃旧数据的待写记录）
+     */
+    public boolean reset(List<TrashItem> loaded, long sequence, Runnable onApply) {
+        return submitAndWait(() -> {
+            onApply.run();
+
+            long maxId = 0L;
+            for (TrashItem item : loaded) {
+                maxId = Math.max(maxId, item.getId());
+            }
+            // 存储按加入顺序返回，ID应严格递增；不满足时（旧数据没有ID或ID重复）在末尾之后补发
+            boolean assigned = false;
+            long lastId = 0L;
+            List<Long> ids = new ArrayList<>(loaded.size());
+            for (TrashItem item : loaded) {
+                if (item.getId() <= lastId) {
+                    item.setId(++maxId);
+                    assigned = true;
+                }
+                lastId = item.getId();
+                ids.add(lastId);
+            }
+            items = PersistentSortedMap.fromSorted(Comparator.naturalOrder(), ids, loaded);
+            rebuildMaterialIndex();
+            rebuildOwnerIndex();
+            searchIndex = null; // 由 buildSearchIndex 重新建立
+            searchReady = false;
+            nextId = maxId + 1;
+            nextSequence = sequence + 1;
+            rebuildIndexes();
+            return assigned;
+        });
+    }
+
+    /**
+     * 设置上限、移除策略、保留时间和价格计算并等待完成，超出新上限的物品立即按策略移除
+     *
+     * @param ttl           物品的保留时长（毫秒），0表示永久保留；在写者线程上调用，结果在下次配置前不应变化
+     * @param priceFunction 物品价格，用于价格排序；价格配置变化后调用 {@link #reindex()}
+     */
+    public void configure(int maxItems, long maxBytes, EvictionPolicy policy, ToLongFunction<TrashItem> ttl,
+                          ToDoubleFunction<TrashItem> priceFunction) {
+        submitAndWait(() -> {
+            this.maxItems = maxItems;
+            this.maxBytes = maxBytes;
+            this.policy = policy;
+            this.ttl = ttl;
+            this.priceFunction = priceFunction;
+            this.tracksViews = policy.tracksViews();
+            rebuildIndexes();
+            evictOverflow();
+            return null;
+        });
+    }
+
+    /**
+     * 设置物品增删后的监听器，在写者线程上调用
+     */
+    public void setChangeListener(Runnable listener) {
+        this.changeListener = listener;
+    }
+
+    /**
+     * 价格配置变化后只重建价格相关的索引（价格排序和按价格移除），"最久未查看"策略记录的查看顺序不受影响
+     */
+    public void reindex() {
+        submit(() -> {
+            rebuildPriceIndex();
+            for (TrashItem item : items.values()) {
+                policy.repriced(item);
+            }
+        });
+    }
+
+    /**
+     * 记录物品被玩家看到（仅"最久未查看"策略需要），不等待完成
+     */
+    public void markViewed(List<TrashItem> viewed) {
+        if (!tracksViews || viewed.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(viewed.size());
+        for (TrashItem item : viewed) {
+            ids.add(item.getId());
+        }
+        submit(readOnly(() -> {
+            for (Long id : ids) {
+                TrashItem item = items.get(id);
+                if (item != null) {
+                    policy.viewed(item);
+                }
+            }
+        }));
+    }
+
+    /**
+     * 移除所有到期时间不晚于 now 的物品，不等待完成；结果为被移除的物品，在写者线程上完成，O(到期数量 · log n)
+     */
+    public CompletableFuture<List<TrashItem>> expire(long now) {
+        if (now < nextExpiry) {
+            return CompletableFuture.completedFuture(List.of()); // 没有到期物品，不提交修改
+        }
+
+        return submitAsync(() -> {
+            List<TrashItem> expired = new ArrayList<>();
+            while (!expiry.isEmpty() && expiry.first().expireAt() <= now) {
+                TrashItem item = items.get(expiry.pollFirst().id());
+                if (item != null) {
+                    removeEntry(item);
+                    dropListener.dropped(item, ColdArchive.REASON_EXPIRED);
+                    expired.add(item);
+                }
+            }
+            return expired;
+        });
+    }
+
+    /**
+     * 移除某个玩家丢弃的全部物品并等待完成，返回被移除的物品，O(该玩家物品数 · log n)
+     */
+    public List<TrashItem> removeOwner(UUID ownerId) {
+        return submitAndWait(() -> {
+            PersistentSortedMap<Long, TrashItem> owned = byOwner.get(ownerId);
+            List<TrashItem> removed = owned == null ? List.of() : new ArrayList<>(owned.values());
+            for (TrashItem item : removed) {
+                removeEntry(item);
+                dropListener.dropped(item, ColdArchive.REASON_CLEARED);
+            }
+            return removed;
+        });
+    }
+
+    /**
+     * 建立搜索索引：先在调用线程（异步）上为当前快照的物品计算检索文本，再交给写者一次性建立，不等待完成
+     */
+    public void buildSearchIndex() {
+        for (TrashItem item : snapshot.getItems()) {
+            item.getSearchText();
+        }
+        submit(readOnly(() -> {
+            SearchIndex index = new SearchIndex();
+            for (TrashItem item : items.values()) {
+                index.add(item);
+            }
+            searchIndex = index;
+            searchReady = true;
+        }));
+    }
+
+    public boolean isSearchReady() {
+        return searchReady;
+    }
+
+    /**
+     * 按名称、材质、Lore 搜索，不等待完成；索引尚未建立时结果为 null
+     * 结果缓存在已发布的快照中，同一快照上的相同查询只交给写者执行一次；查询不发布新快照
+     */
+    public CompletableFuture<List<TrashItem>> search(String query) {
+        if (!searchReady) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<TrashItem> cached = snapshot.getSearchResults(query);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return submitAsync(readOnly(() -> {
+            List<TrashItem> results = searchIndex != null
+                    ? Collections.unmodifiableList(searchIndex.search(query, items)) : null;
+            // 写者执行只读操作前已发布之前的修改；在修改中途执行时（监听器内调用）数据与快照不一致，不缓存
+            if (results != null && !dirty) {
+                snapshot.cacheSearchResults(query, results);
+            }
+            return results;
+        }));
+    }
+
+    /**
+     * 按名称查找丢弃者UUID（不区分大小写），只查缓存，找不到时返回 null
+     */
+    public UUID resolveOwner(String name) {
+        return ownerIdsByName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    public String getOwnerName(UUID ownerId) {
+        return ownerNames.get(ownerId);
+    }
+
+    public Set<String> getOwnerNames() {
+        return Collections.unmodifiableSet(new HashSet<>(ownerNames.values()));
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    private void removeEntry(TrashItem item) {
+        items = items.remove(item.getId());
+        PersistentSortedMap<Long, TrashItem> matches = byMaterial.get(item.getItemType());
+        if (matches != null) {
+            matches = matches.remove(item.getId());
+            if (matches.isEmpty()) {
+                byMaterial.remove(item.getItemType());
+            } else {
+                byMaterial.put(item.getItemType(), matches);
+            }
+            materialsChanged = true;
+        }
+        if (item.getOwnerId() != null) {
+            PersistentSortedMap<Long, TrashItem> owned = byOwner.get(item.getOwnerId());
+            if (owned != null) {
+                owned = owned.remove(item.getId());
+                byOwner = owned.isEmpty() ? byOwner.remove(item.getOwnerId()) : byOwner.put(item.getOwnerId(), owned);
+            }
+        }
+        SortKey priceKey = priceKeys.remove(item.getId());
+        if (priceKey != null) {
+            byPrice = byPrice.remove(priceKey);
+        }
+        byAmount = byAmount.remove(new SortKey(item.getAmount(), item.getId()));
+        if (searchIndex != null) {
+            searchIndex.remove(item);
+        }
+        totalBytes -= item.getEstimatedSize();
+        policy.removed(item);
+        ExpiryKey key = expiryKey(item);
+        if (key != null) {
+            expiry.remove(key);
+        }
+        recorder.accept(TrashJournal.Entry.remove(nextSequence++, item.getId()));
+    }
+
+    private void indexMaterial(TrashItem item) {
+        PersistentSortedMap<Long, TrashItem> matches = byMaterial.get(item.getItemType());
+        if (matches == null) {
+            matches = PersistentSortedMap.empty(Comparator.naturalOrder());
+        }
+        byMaterial.put(item.getItemType(), matches.put(item.getId(), item));
+        materialsChanged = true;
+    }
+
+    /**
+     * 从按ID排序的全部物品一次性重建材质索引，每个材质 O(匹配数量)
+     */
+    private void rebuildMaterialIndex() {
+        Map<Material, List<Long>> ids = new EnumMap<>(Material.class);
+        Map<Material, List<TrashItem>> values = new EnumMap<>(Material.class);
+        for (TrashItem item : items.values()) {
+            ids.computeIfAbsent(item.getItemType(), type -> new ArrayList<>()).add(item.getId());
+            values.computeIfAbsent(item.getItemType(), type -> new ArrayList<>()).add(item);
+        }
+        byMaterial.clear();
+        for (Map.Entry<Material, List<Long>> entry : ids.entrySet()) {
+            byMaterial.put(entry.getKey(), PersistentSortedMap.fromSorted(Comparator.naturalOrder(),
+                    entry.getValue(), values.get(entry.getKey())));
+        }
+        materialsChanged = true;
+    }
+
+    private void indexOwner(TrashItem item) {
+        UUID ownerId = item.getOwnerId();
+        if (ownerId == null) {
+            return;
+        }
+        PersistentSortedMap<Long, TrashItem> owned = byOwner.get(ownerId);
+        if (owned == null) {
+            owned = PersistentSortedMap.empty(Comparator.naturalOrder());
+        }
+        byOwner = byOwner.put(ownerId, owned.put(item.getId(), item));
+        cacheOwnerName(ownerId, item.getOwner());
+    }
+
+    private void cacheOwnerName(UUID ownerId, String name) {
+        String previous = ownerNames.put(ownerId, name);
+        if (previous != null && !previous.equalsIgnoreCase(name)) {
+            ownerIdsByName.remove(previous.toLowerCase(Locale.ROOT), ownerId); // 玩家改名
+        }
+        ownerIdsByName.put(name.toLowerCase(Locale.ROOT), ownerId);
+    }
+
+    /**
+     * 从按ID排序的全部物品一次性重建丢弃者索引
+     */
+    private void rebuildOwnerIndex() {
+        Map<UUID, List<Long>> ids = new HashMap<>();
+        Map<UUID, List<TrashItem>> values = new HashMap<>();
+        for (TrashItem item : items.values()) {
+            if (item.getOwnerId() != null) {
+                ids.computeIfAbsent(item.getOwnerId(), owner -> new ArrayList<>()).add(item.getId());
+                values.computeIfAbsent(item.getOwnerId(), owner -> new ArrayList<>()).add(item);
+                cacheOwnerName(item.getOwnerId(), item.getOwner());
+            }
+        }
+        byOwner = PersistentSortedMap.empty(Comparator.naturalOrder());
+        for (Map.Entry<UUID, List<Long>> entry : ids.entrySet()) {
+            byOwner = byOwner.put(entry.getKey(), PersistentSortedMap.fromSorted(Comparator.naturalOrder(),
+                    entry.getValue(), values.get(entry.getKey())));
+        }
+    }
+
+    private void indexSort(TrashItem item) {
+        SortKey priceKey = new SortKey(priceFunction.applyAsDouble(item), item.getId());
+        priceKeys.put(item.getId(), priceKey);
+        byPrice = byPrice.put(priceKey, item);
+        byAmount = byAmount.put(new SortKey(item.getAmount(), item.getId()), item);
+    }
+
+    private void rebuildIndexes() {
+        totalBytes = 0;
+        policy.clear();
+        expiry.clear();
+        List<SortKey> amountKeys = new ArrayList<>(items.size());
+        for (TrashItem item : items.values()) {
+            totalBytes += item.getEstimatedSize();
+            policy.added(item);
+            indexExpiry(item);
+            amountKeys.add(new SortKey(item.getAmount(), item.getId()));
+        }
+        byAmount = buildSorted(amountKeys);
+        rebuildPriceIndex();
+    }
+
+    private void rebuildPriceIndex() {
+        priceKeys.clear();
+        for (TrashItem item : items.values()) {
+            priceKeys.put(item.getId(), new SortKey(priceFunction.applyAsDouble(item), item.getId()));
+        }
+        byPrice = buildSorted(new ArrayList<>(priceKeys.values()));
+    }
+
+    /**
+     * 排序后一次性构建排序索引，O(n log n)
+     */
+    private PersistentSortedMap<SortKey, TrashItem> buildSorted(List<SortKey> keys) {
+        Collections.sort(keys);
+        List<TrashItem> values = new ArrayList<>(keys.size());
+        for (SortKey key : keys) {
+            values.add(items.get(key.id()));
+        }
+        return PersistentSortedMap.fromSorted(Comparator.naturalOrder(), keys, values);
+    }
+
+    private ExpiryKey expiryKey(TrashItem item) {
+        long lifetime = ttl.applyAsLong(item);
+        return lifetime > 0 ? new ExpiryKey(item.getDiscardTimeMillis() + lifetime, item.getId()) : null;
+    }
+
+    private void indexExpiry(TrashItem item) {
+        ExpiryKey key = expiryKey(item);
+        if (key != null) {
+            expiry.add(key);
+        }
+    }
+
+    /**
+     * 超出上限时按策略逐个移除，每次加入只移除超出的部分
+     */
+    private void evictOverflow() {
+        int evicted = 0;
+        while ((maxItems > 0 && items.size() > maxItems) || (maxBytes > 0 && totalBytes > maxBytes)) {
+            TrashItem victim = policy.victim(items);
+            if (victim == null) {
+                break;
+            }
+            removeEntry(victim);
+            dropListener.dropped(victim, ColdArchive.REASON_EVICTED);
+            evicted++;
+        }
+        if (evicted > 0 && config.isDebug()) {
+            plugin.getLogger().info("公共垃圾桶已满，按策略移除了 " + evicted + " 个物品");
+        }
+    }
+
+    private void submit(Mutation mutation) {
+        mutations.offer(mutation);
+        drain();
+    }
+
+    private static Mutation readOnly(Runnable action) {
+        return new Mutation() {
+            @Override
+            public void apply() {
+                action.run();
+            }
+
+            @Override
+            public boolean modifies() {
+                return false;
+            }
+        };
+    }
+
+    private static <T> Query<T> readOnly(Query<T> query) {
+        return new Query<>() {
+            @Override
+            public T apply() {
+                return query.apply();
+            }
+
+            @Override
+            public boolean modifies() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 提交修改，不等待；结果在写者线程上完成，修改抛出异常时异常完成
+     */
+    private <T> CompletableFuture<T> submitAsync(Query<T> query) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        submit(new Mutation() {
+            @Override
+            public void apply() {
+                try {
+                    result.complete(query.apply());
+                } catch (RuntimeException | Error e) {
+                    result.completeExceptionally(e);
+                    throw e;
+                }
+            }
+
+            @Override
+            public boolean modifies() {
+                return query.modifies();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 提交修改并等待结果；修改抛出异常、写者超时未处理或等待被中断时抛出 IllegalStateException，调用方不会一直阻塞
+     * 在写者线程上调用时（如监听器在修改或发布过程中再次修改）直接执行，等待自己会一直卡到超时
+     */
+    private <T> T submitAndWait(Query<T> query) {
+        if (writer == Thread.currentThread()) {
+            dirty |= query.modifies();
+            return query.apply();
+        }
+        CompletableFuture<T> result = submitAsync(query);
+        try {
+            return result.get(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("修改公共垃圾桶数据失败", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("等待公共垃圾桶写入超时", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待公共垃圾桶写入时被中断", e);
+        }
+    }
+
+    /**
+     * 抢写权限并应用队列中的全部修改；抢不到说明其他线程正在写，它会在释放前处理掉本线程放入的修改
+     */
+    private void drain() {
+        while (!mutations.isEmpty() && writing.compareAndSet(false, true)) {
+            writer = Thread.currentThread();
+            try {
+                Mutation mutation;
+                while ((mutation = mutations.poll()) != null) {
+                    if (!mutation.modifies() && dirty) {
+                        // 只读操作在已发布的数据上执行，先发布之前的修改
+                        publish();
+                    }
+                    dirty |= mutation.modifies();
+                    try {
+                        mutation.apply();
+                    } catch (Exception e) {
+                        plugin.getLogger().log(Level.SEVERE, "修改公共垃圾桶数据时出错", e);
+                    }
+                }
+                while (dirty) {
+                    publish(); // 监听器在发布时直接执行的修改需要再发布一次
+                }
+            } finally {
+                writer = null;
+                writing.set(false);
+            }
+        }
+    }
+
+    private void publish() {
+        dirty = false;
+        nextExpiry = expiry.isEmpty() ? Long.MAX_VALUE : expiry.first().expireAt();
+        if (materialsChanged) {
+            // 只复制材质表本身（每个材质一个引用），各材质的索引与写者共享
+            publishedMaterials = Collections.unmodifiableMap(new EnumMap<>(byMaterial));
+            materialsChanged = false;
+        }
+        long previous = snapshot.getSequence();
+        snapshot = new TrashSnapshot(items, publishedMaterials, byOwner, byPrice, byAmount, priceFunction,
+                nextSequence - 1);
+
+        // 只在物品有增删时通知（调整上限配置、重建价格索引等也会发布快照）
+        Runnable listener = changeListener;
+        if (listener != null && snapshot.getSequence() != previous) {
+            listener.run();
+        }
+    }
+}
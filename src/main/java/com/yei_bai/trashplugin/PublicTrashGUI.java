@@ -3,14 +3,24 @@ package com.yei_bai.trashplugin;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 公共垃圾桶界面
+ * 正在被查看的页面登记在查看者表中，相同筛选、排序和页码的玩家共用同一个界面；
+ * 数据变化后下一刻统一按差异更新所有页面，购买后不再关闭重开；
+ * 独自查看时翻页和换排序直接改写已打开的界面，页码记录在页面登记中
+ */
 public class PublicTrashGUI {
 
     private final TrashPlugin plugin;
@@ -18,19 +28,97 @@ public class PublicTrashGUI {
     private final MessageManager messages;
     private final DataManager dataManager;
 
-    private final Map<UUID, Integer> playerPages = new HashMap<>();
+    // 展示物品缓存上限（约为四十个满页）
+    private static final int DISPLAY_CACHE_SIZE = 2048;
+
+    private final boolean isFolia;
+    // Folia 上各玩家在自己的线程上读写，须为并发表
+    private final Map<UUID, TrashView> playerViews = new ConcurrentHashMap<>(); // 玩家当前的筛选范围，不筛选时不在表中
+    private final Map<UUID, TrashSort> playerSorts = new ConcurrentHashMap<>(); // 玩家选择的排序方式，默认按加入先后
+    // 查看者登记：正在被查看的页面，以及每个玩家当前打开的页面
+    private final Map<PublicTrashPage.Key, PublicTrashPage> pages = new ConcurrentHashMap<>();
+    private final Map<UUID, PublicTrashPage> viewers = new ConcurrentHashMap<>();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean(false);
+    private final NamespacedKey itemIdKey;
+    // 按物品ID缓存生成好的展示物品，放入界面时由服务端复制，缓存的实例本身不会被修改
+    private final Map<Long, ItemStack> displayCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, ItemStack> eldest) {
+                    return size() > DISPLAY_CACHE_SIZE;
+                }
+            });
+    private volatile int displayCacheVersion = -1;
 
     public PublicTrashGUI() {
         this.plugin = TrashPlugin.getInstance();
         this.config = plugin.getConfigManager();
         this.messages = plugin.getMessageManager();
         this.dataManager = plugin.getDataManager();
+        this.itemIdKey = new NamespacedKey(plugin, "trash_item_id");
+
+        boolean foliaDetected;
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            foliaDetected = true;
+        } catch (ClassNotFoundException e) {
+            foliaDetected = false;
+        }
+        this.isFolia = foliaDetected;
+
+        dataManager.setChangeListener(this::onTrashChanged);
+    }
+
+    /**
+     * 读取展示物品上记录的垃圾桶物品ID，不是垃圾桶物品时返回 -1
+     */
+    public long getItemId(ItemStack displayItem) {
+        if (displayItem == null || !displayItem.hasItemMeta()) {
+            return -1;
+        }
+        Long id = displayItem.getItemMeta().getPersistentDataContainer().get(itemIdKey, PersistentDataType.LONG);
+        return id != null ? id : -1;
     }
 
     public void openGUI(Player player, int page) {
         openGUI(player, page, false);
     }
 
+    /**
+     * 设置玩家的筛选范围（材质、丢弃者）后打开指定页
+     */
+    public void openGUI(Player player, int page, TrashView view) {
+        if (view == TrashView.ALL) {
+            playerViews.remove(player.getUniqueId());
+        } else {
+            playerViews.put(player.getUniqueId(), view);
+        }
+        openGUI(player, page, false);
+    }
+
+    public TrashView getView(Player player) {
+        return playerViews.getOrDefault(player.getUniqueId(), TrashView.ALL);
+    }
+
+    public TrashSort getSort(Player player) {
+        return playerSorts.getOrDefault(player.getUniqueId(), TrashSort.OLDEST);
+    }
+
+    /**
+     * 切换到下一种排序方式并回到第一页，筛选范围不变
+     */
+    public void cycleSort(Player player) {
+        playerSorts.put(player.getUniqueId(), getSort(player).next());
+        openGUI(player, 0, false);
+    }
+
+    /**
+     * 玩家当前打开的公共垃圾桶页面，没有打开时返回 null
+     */
+    public PublicTrashPage getOpenPage(Player player) {
+        return viewers.get(player.getUniqueId());
+    }
+
     public void openGUI(Player player, int page, boolean forceOpen) {
         // 检查世界是否启用
         if (!config.isWorldEnabled(player.getWorld().getName()) &&
@@ -39,9 +127,10 @@ public class PublicTrashGUI {
             return;
         }
 
-        // 检查分页
+        // 检查分页（有筛选时只对匹配的物品分页）
+        TrashView view = getView(player);
         int itemsPerPage = config.getItemsPerPage();
-        int totalPages = dataManager.getTotalPages(itemsPerPage);
+        int totalPages = dataManager.getTotalPages(view, itemsPerPage);
 
         if (page < 0) {
             page = 0;
@@ -51,30 +140,30 @@ public class PublicTrashGUI {
             page = totalPages - 1;
         }
 
-        // 保存玩家当前页码
-        playerPages.put(player.getUniqueId(), page);
-
-        // 创建GUI
-        int rows = config.getPublicRows();
-        int size = rows * 9;
-        String baseTitle = ChatColor.translateAlternateColorCodes('&', config.getPublicTitle());
-        String pageTitle = totalPages > 0 ?
-                baseTitle + ChatColor.GRAY + " (" + (page + 1) + "/" + totalPages + ")" :
-                baseTitle;
-
-        Inventory gui = Bukkit.createInventory(null, size, pageTitle);
-
-        // 填充装饰物品
-        fillDecoration(gui);
-
-        // 添加控制按钮
-        addControlButtons(gui, page, totalPages);
-
-        // 添加物品
-        addItems(gui, page, itemsPerPage);
+        // 取共用的页面（Folia 上每个玩家独占），已经在看这个页面时不重新打开
+        PublicTrashPage.Key key = new PublicTrashPage.Key(view, getSort(player), page,
+                isFolia ? player.getUniqueId() : null);
+        PublicTrashPage livePage = pages.get(key);
+        PublicTrashPage current = viewers.get(player.getUniqueId());
+        if (livePage == null && canSwitchInPlace(player, current, key)) {
+            // 只有自己在看当前界面：直接改写内容，不重新打开界面
+            livePage = switchInPlace(current, key);
+        } else if (livePage == null) {
+            livePage = pages.computeIfAbsent(key, this::createPage);
+        }
+        if (player.getOpenInventory().getTopInventory() != livePage.getInventory()
+                && player.openInventory(livePage.getInventory()) == null) {
+            // 打开被其他插件取消
+            if (livePage.getViewers().isEmpty()) {
+                pages.remove(key, livePage);
+            }
+            return;
+        }
+        livePage.getViewers().add(player.getUniqueId());
+        viewers.put(player.getUniqueId(), livePage);
 
-        // 打开GUI
-        player.openInventory(gui);
+        List<TrashItem> shown = renderPage(livePage);
+        dataManager.markViewed(shown);
 
         // 发送消息
         if (totalPages > 0) {
@@ -87,49 +176,175 @@ public class PublicTrashGUI {
         }
     }
 
-    private void fillDecoration(Inventory gui) {
-        try {
-            Material material = Material.valueOf(config.getPublicDecorationMaterial());
-            ItemStack decoration = new ItemStack(material, 1);
-            ItemMeta meta = decoration.getItemMeta();
-
-            if (meta != null) {
-                meta.setDisplayName(ChatColor.translateAlternateColorCodes('&',
-                        config.getPublicDecorationName()));
-                decoration.setItemMeta(meta);
-            }
+    /**
+     * 玩家正独自查看当前页面且筛选范围不变（标题不用改）时，可以原地切换到目标页
+     */
+    private boolean canSwitchInPlace(Player player, PublicTrashPage current, PublicTrashPage.Key key) {
+        return current != null
+                && player.getOpenInventory().getTopInventory() == current.getInventory()
+                && current.getViewers().size() == 1
+                && current.getView().equals(key.view());
+    }
+
+    private PublicTrashPage switchInPlace(PublicTrashPage current, PublicTrashPage.Key key) {
+        pages.remove(current.getKey(), current);
+        TrashSort previousSort = current.getSort();
+        current.setKey(key);
+        pages.put(key, current);
+        if (previousSort != key.sort()) {
+            addSortButton(current.getInventory(), key.sort());
+        }
+        return current;
+    }
 
-            // 只填充底部一行（第6行，索引45-53），不包括控制按钮位置
-            for (int i = 45; i < 54; i++) {
-                if (i != config.getPreviousPageSlot() &&
-                        i != config.getNextPageSlot()) {
-                    gui.setItem(i, decoration.clone());
+    /**
+     * 立即按最新数据更新玩家当前打开的页面（如购买之后），只改动变化的格子
+     */
+    public void refresh(Player player) {
+        PublicTrashPage livePage = viewers.get(player.getUniqueId());
+        if (livePage != null) {
+            renderPage(livePage);
+        }
+    }
+
+    /**
+     * 玩家关闭界面时注销查看者，页面没有查看者后丢弃
+     */
+    public void handleClose(Player player, Inventory inventory) {
+        PublicTrashPage livePage = viewers.get(player.getUniqueId());
+        if (livePage == null || livePage.getInventory() != inventory) {
+            return;
+        }
+        viewers.remove(player.getUniqueId(), livePage);
+        livePage.getViewers().remove(player.getUniqueId());
+        if (livePage.getViewers().isEmpty()) {
+            pages.remove(livePage.getKey(), livePage);
+        }
+    }
+
+    /**
+     * 玩家退出时清除其筛选范围和排序方式（翻页时会先关闭旧界面，因此不能在关闭界面时清除）
+     */
+    public void forget(Player player) {
+        playerViews.remove(player.getUniqueId());
+        playerSorts.remove(player.getUniqueId());
+    }
+
+    /**
+     * 公共垃圾桶数据变化（在写者线程上调用）：合并同一刻的多次变化，下一刻统一更新所有正在被查看的页面
+     */
+    private void onTrashChanged() {
+        if (pages.isEmpty() || !plugin.isEnabled() || !refreshScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        if (isFolia) {
+            Bukkit.getGlobalRegionScheduler().run(plugin, task -> refreshAll());
+        } else {
+            Bukkit.getScheduler().runTask(plugin, this::refreshAll);
+        }
+    }
+
+    private void refreshAll() {
+        refreshScheduled.set(false);
+        for (PublicTrashPage livePage : pages.values()) {
+            if (isFolia) {
+                // Folia 上页面只有一个查看者，界面只能在其所属线程上修改
+                for (UUID viewerId : livePage.getViewers()) {
+                    Player viewer = Bukkit.getPlayer(viewerId);
+                    if (viewer != null) {
+                        viewer.getScheduler().run(plugin, task -> renderPage(livePage), null);
+                    }
                 }
+            } else {
+                renderPage(livePage);
             }
+        }
+    }
 
-        } catch (IllegalArgumentException e) {
-            plugin.getLogger().warning("无效的公共垃圾桶装饰物品材质: " + config.getPublicDecorationMaterial());
-            // 使用默认材质
-            ItemStack defaultDecoration = new ItemStack(Material.GRAY_STAINED_GLASS_PANE, 1);
-            ItemMeta meta = defaultDecoration.getItemMeta();
-            meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', "&8╏"));
-            defaultDecoration.setItemMeta(meta);
-
-            for (int i = 45; i < 54; i++) {
-                if (i != config.getPreviousPageSlot() &&
-                        i != config.getNextPageSlot()) {
-                    gui.setItem(i, defaultDecoration.clone());
-                }
+    /**
+     * 创建页面：标题、装饰和与页码无关的按钮只设置一次，物品和翻页按钮由 renderPage 按差异更新
+     */
+    private PublicTrashPage createPage(PublicTrashPage.Key key) {
+        int size = config.getPublicRows() * 9;
+        String title = ChatColor.translateAlternateColorCodes('&', config.getPublicTitle());
+        if (key.view().getLabel() != null) {
+            title += ChatColor.YELLOW + " [" + key.view().getLabel() + "]";
+        }
+
+        PublicTrashPage livePage = new PublicTrashPage(key, size, title, config.getItemsPerPage());
+        Inventory gui = livePage.getInventory();
+        fillDecoration(gui);
+        addFilterButton(gui, key.view());
+        addMineButton(gui);
+        addSortButton(gui, key.sort());
+        return livePage;
+    }
+
+    /**
+     * 按当前快照更新页面，只写入显示内容发生变化的格子，返回本页的物品
+     */
+    private List<TrashItem> renderPage(PublicTrashPage livePage) {
+        int version = dataManager.getDisplayVersion();
+        if (version != livePage.getDisplayVersion()) {
+            livePage.invalidate(); // 价格或配置变化，整页重绘
+            livePage.setDisplayVersion(version);
+        }
+
+        Inventory gui = livePage.getInventory();
+        int itemsPerPage = livePage.getSlotCount();
+        List<TrashItem> items = dataManager.getPublicTrashItems(livePage.getView(), livePage.getSort(),
+                livePage.getPage(), itemsPerPage);
+        for (int slot = 0; slot < itemsPerPage; slot++) {
+            TrashItem item = slot < items.size() ? items.get(slot) : null;
+            long id = item != null ? item.getId() : 0L;
+            if (livePage.getSlotId(slot) != id) {
+                gui.setItem(slot, item != null ? getDisplayItem(item) : null);
+                livePage.setSlotId(slot, id);
             }
         }
+
+        int totalItems = dataManager.getPublicTrashSize(livePage.getView());
+        int totalPages = Math.max(1, (totalItems + itemsPerPage - 1) / itemsPerPage);
+        if (totalPages != livePage.getTotalPages() || totalItems != livePage.getTotalItems()) {
+            updateNavigation(gui, livePage.getPage(), totalPages, totalItems);
+            livePage.setTotals(totalPages, totalItems);
+        }
+        return items;
     }
 
-    private void addControlButtons(Inventory gui, int currentPage, int totalPages) {
+    private ItemStack createDecoration() {
+        ItemStack decoration = new ItemStack(config.getPublicDecorationType(), 1);
+        ItemMeta meta = decoration.getItemMeta();
+        if (meta != null) {
+            meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', config.getPublicDecorationName()));
+            decoration.setItemMeta(meta);
+        }
+        return decoration;
+    }
+
+    private void fillDecoration(Inventory gui) {
+        ItemStack decoration = createDecoration();
+
+        // 只填充底部一行（第6行，索引45-53），不包括控制按钮位置
+        for (int i = 45; i < Math.min(54, gui.getSize()); i++) {
+            if (config.getPublicSlot(i) == PublicTrashSlot.DECORATION) {
+                gui.setItem(i, decoration);
+            }
+        }
+    }
+
+    /**
+     * 更新翻页按钮和页码信息，不可用的翻页按钮位置显示装饰物品
+     */
+    private void updateNavigation(Inventory gui, int currentPage, int totalPages, int totalItems) {
+        ItemStack decoration = createDecoration();
+
         // 上一页按钮
+        ItemStack prevButton = null;
         if (currentPage > 0) {
             try {
                 Material prevMaterial = Material.valueOf(config.getPreviousPageMaterial());
-                ItemStack prevButton = new ItemStack(prevMaterial, 1);
+                prevButton = new ItemStack(prevMaterial, 1);
                 ItemMeta prevMeta = prevButton.getItemMeta();
                 prevMeta.setDisplayName(ChatColor.translateAlternateColorCodes('&',
                         config.getPreviousPageName()));
@@ -138,18 +353,18 @@ public class PublicTrashGUI {
                 prevLore.add(ChatColor.GRAY + "点击切换到上一页");
                 prevMeta.setLore(prevLore);
                 prevButton.setItemMeta(prevMeta);
-
-                gui.setItem(config.getPreviousPageSlot(), prevButton);
             } catch (IllegalArgumentException e) {
                 plugin.getLogger().warning("无效的上一页按钮材质: " + config.getPreviousPageMaterial());
             }
         }
+        gui.setItem(config.getPreviousPageSlot(), prevButton != null ? prevButton : decoration);
 
         // 下一页按钮
+        ItemStack nextButton = null;
         if (currentPage < totalPages - 1) {
             try {
                 Material nextMaterial = Material.valueOf(config.getNextPageMaterial());
-                ItemStack nextButton = new ItemStack(nextMaterial, 1);
+                nextButton = new ItemStack(nextMaterial, 1);
                 ItemMeta nextMeta = nextButton.getItemMeta();
                 nextMeta.setDisplayName(ChatColor.translateAlternateColorCodes('&',
                         config.getNextPageName()));
@@ -158,32 +373,112 @@ public class PublicTrashGUI {
                 nextLore.add(ChatColor.GRAY + "点击切换到下一页");
                 nextMeta.setLore(nextLore);
                 nextButton.setItemMeta(nextMeta);
-
-                gui.setItem(config.getNextPageSlot(), nextButton);
             } catch (IllegalArgumentException e) {
                 plugin.getLogger().warning("无效的下一页按钮材质: " + config.getNextPageMaterial());
             }
         }
+        gui.setItem(config.getNextPageSlot(), nextButton != null ? nextButton : decoration);
+
+        // 页码信息（标题不随内容更新，页码显示在这里）
+        try {
+            ItemStack pageInfo = new ItemStack(Material.valueOf(config.getPageInfoMaterial()), 1);
+            ItemMeta infoMeta = pageInfo.getItemMeta();
+            infoMeta.setDisplayName(ChatColor.WHITE + "第 " + (currentPage + 1) + "/" + totalPages + " 页");
 
-        // 移除购买按钮
+            List<String> infoLore = new ArrayList<>();
+            infoLore.add(ChatColor.GRAY + "共 " + totalItems + " 个物品");
+            infoMeta.setLore(infoLore);
+            pageInfo.setItemMeta(infoMeta);
+
+            gui.setItem(config.getPageInfoSlot(), pageInfo);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("无效的页码信息材质: " + config.getPageInfoMaterial());
+        }
     }
 
-    private void addItems(Inventory gui, int page, int itemsPerPage) {
-        List<TrashItem> items = dataManager.getPublicTrashItems(page, itemsPerPage);
+    private void addFilterButton(Inventory gui, TrashView view) {
+        try {
+            Material filterMaterial = Material.valueOf(config.getFilterMaterial());
+            ItemStack filterButton = new ItemStack(filterMaterial, 1);
+            ItemMeta filterMeta = filterButton.getItemMeta();
+            filterMeta.setDisplayName(ChatColor.translateAlternateColorCodes('&', config.getFilterName()));
+
+            List<String> filterLore = new ArrayList<>();
+            filterLore.add(ChatColor.GRAY + "当前筛选: " + ChatColor.YELLOW +
+                    (view.getLabel() != null ? view.getLabel() : "全部"));
+            filterLore.add(ChatColor.GRAY + "手持物品点击：只显示同材质物品");
+            filterLore.add(ChatColor.GRAY + "空手点击：取消筛选");
+            filterLore.add(ChatColor.GRAY + "右键垃圾桶中的物品也可筛选同材质");
+            filterMeta.setLore(filterLore);
+            filterButton.setItemMeta(filterMeta);
+
+            gui.setItem(config.getFilterSlot(), filterButton);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("无效的筛选按钮材质: " + config.getFilterMaterial());
+        }
+    }
 
-        for (int i = 0; i < items.size(); i++) {
-            if (i >= itemsPerPage) {
-                break; // 超出每页限制
+    private void addMineButton(Inventory gui) {
+        try {
+            Material mineMaterial = Material.valueOf(config.getMineMaterial());
+            ItemStack mineButton = new ItemStack(mineMaterial, 1);
+            ItemMeta mineMeta = mineButton.getItemMeta();
+            mineMeta.setDisplayName(ChatColor.translateAlternateColorCodes('&', config.getMineName()));
+
+            // 页面由多个玩家共用，提示不区分查看者
+            List<String> mineLore = new ArrayList<>();
+            mineLore.add(ChatColor.GRAY + "点击只显示自己丢弃的物品");
+            mineLore.add(ChatColor.GRAY + "已在查看时再次点击返回全部物品");
+            mineMeta.setLore(mineLore);
+            mineButton.setItemMeta(mineMeta);
+
+            gui.setItem(config.getMineSlot(), mineButton);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("无效的我的物品按钮材质: " + config.getMineMaterial());
+        }
+    }
+
+    private void addSortButton(Inventory gui, TrashSort sort) {
+        try {
+            Material sortMaterial = Material.valueOf(config.getSortMaterial());
+            ItemStack sortButton = new ItemStack(sortMaterial, 1);
+            ItemMeta sortMeta = sortButton.getItemMeta();
+            sortMeta.setDisplayName(ChatColor.translateAlternateColorCodes('&', config.getSortName()));
+
+            List<String> sortLore = new ArrayList<>();
+            for (TrashSort mode : TrashSort.values()) {
+                sortLore.add((mode == sort ? ChatColor.GREEN + "▶ " : ChatColor.GRAY + "  ") + mode.getDisplayName());
             }
+            sortLore.add(ChatColor.GRAY + "点击切换排序方式");
+            sortMeta.setLore(sortLore);
+            sortButton.setItemMeta(sortMeta);
+
+            gui.setItem(config.getSortSlot(), sortButton);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("无效的排序按钮材质: " + config.getSortMaterial());
+        }
+    }
+
+    /**
+     * 取缓存的展示物品，价格或配置变化后整体失效；ID在同一次加载内不会重复使用
+     */
+    private ItemStack getDisplayItem(TrashItem trashItem) {
+        int version = dataManager.getDisplayVersion();
+        if (version != displayCacheVersion) {
+            displayCache.clear();
+            displayCacheVersion = version;
+        }
 
-            TrashItem trashItem = items.get(i);
-            ItemStack displayItem = createDisplayItem(trashItem);
-            gui.setItem(i, displayItem);
+        ItemStack displayItem = displayCache.get(trashItem.getId());
+        if (displayItem == null) {
+            displayItem = createDisplayItem(trashItem);
+            displayCache.put(trashItem.getId(), displayItem);
         }
+        return displayItem;
     }
 
     private ItemStack createDisplayItem(TrashItem trashItem) {
-        ItemStack originalItem = trashItem.getItemStack().clone();
+        ItemStack originalItem = trashItem.getItemStack();
         ItemMeta meta = originalItem.getItemMeta();
 
         if (meta == null) {
@@ -219,14 +514,17 @@ public class PublicTrashGUI {
         // 添加购买提示
         lore.add("");
         lore.add(ChatColor.GREEN + "左键点击购买此物品");
+        lore.add(ChatColor.GRAY + "右键点击只看同材质物品");
 
         meta.setLore(lore);
+        // 记录物品ID，购买时按ID定位，不受其他玩家增删物品导致的位置变化影响
+        meta.getPersistentDataContainer().set(itemIdKey, PersistentDataType.LONG, trashItem.getId());
         originalItem.setItemMeta(meta);
 
         return originalItem;
     }
 
-    private String formatItemName(Material material) {
+    static String formatItemName(Material material) {
         String[] words = material.toString().toLowerCase().split("_");
         return getString(words);
     }
@@ -247,15 +545,8 @@ public class PublicTrashGUI {
     }
 
     private double calculateItemPrice(TrashItem trashItem) {
-        // 首先检查数据管理器中的自定义价格
-        Double customPrice = dataManager.getCustomPrice(trashItem.getItemType().toString());
-        if (customPrice != null) {
-            return customPrice * trashItem.getItemStack().getAmount();
-        }
-
-        // 然后检查配置中的价格
-        double price = config.getPrice(trashItem.getItemType());
-        return price * trashItem.getItemStack().getAmount();
+        // 先检查数据管理器中的自定义价格，再使用配置中的价格
+        return dataManager.getItemPrice(trashItem);
     }
 
 }
\ No newline at end of file
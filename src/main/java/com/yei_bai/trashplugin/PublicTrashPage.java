@@ -0,0 +1,116 @@
+package com.yei_bai.trashplugin;
+
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一个正在被查看的公共垃圾桶页面
+ * 同一筛选范围、排序方式和页码的玩家共用同一个界面（Folia 上每个玩家独占，避免跨区域线程修改），
+ * 数据变化时由 {@link PublicTrashGUI} 只更新内容发生变化的格子
+ * 同时作为界面的持有者，监听器据此识别公共垃圾桶界面
+ */
+public class PublicTrashPage implements InventoryHolder {
+
+    /**
+     * 共用界面的键，Folia 上带查看者UUID
+     */
+    record Key(TrashView view, TrashSort sort, int page, UUID viewer) {
+    }
+
+    private Key key;
+    private final Inventory inventory;
+    private final long[] slotIds;         // 每个物品格当前显示的物品ID，0表示空
+    private final Set<UUID> viewers = ConcurrentHashMap.newKeySet();
+    private int totalPages = -1;          // 上次渲染时的总页数，-1表示尚未渲染
+    private int totalItems = -1;
+    private int displayVersion = -1;      // 上次渲染时的展示物品版本
+
+    PublicTrashPage(Key key, int size, String title, int itemSlots) {
+        this.key = key;
+        this.inventory = Bukkit.createInventory(this, size, title);
+        this.slotIds = new long[itemSlots];
+    }
+
+    public Key getKey() {
+        return key;
+    }
+
+    @Override
+    public @NotNull Inventory getInventory() {
+        return inventory;
+    }
+
+    public TrashView getView() {
+        return key.view();
+    }
+
+    public TrashSort getSort() {
+        return key.sort();
+    }
+
+    public int getPage() {
+        return key.page();
+    }
+
+    public Set<UUID> getViewers() {
+        return viewers;
+    }
+
+    /**
+     * 把界面改为显示另一页（翻页、换排序时由唯一的查看者原地切换），保留各格子的记录以便按差异更新
+     */
+    void setKey(Key key) {
+        this.key = key;
+        totalPages = -1;
+        totalItems = -1;
+    }
+
+    long getSlotId(int slot) {
+        return slot < slotIds.length ? slotIds[slot] : 0L;
+    }
+
+    void setSlotId(int slot, long id) {
+        slotIds[slot] = id;
+    }
+
+    int getSlotCount() {
+        return slotIds.length;
+    }
+
+    int getTotalPages() {
+        return totalPages;
+    }
+
+    int getTotalItems() {
+        return totalItems;
+    }
+
+    void setTotals(int totalPages, int totalItems) {
+        this.totalPages = totalPages;
+        this.totalItems = totalItems;
+    }
+
+    int getDisplayVersion() {
+        return displayVersion;
+    }
+
+    void setDisplayVersion(int displayVersion) {
+        this.displayVersion = displayVersion;
+    }
+
+    /**
+     * 标记需要整页重绘（如展示物品整体失效）
+     */
+    void invalidate() {
+        Arrays.fill(slotIds, -1L);
+        totalPages = -1;
+        totalItems = -1;
+    }
+}
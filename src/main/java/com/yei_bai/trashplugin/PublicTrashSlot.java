@@ -0,0 +1,17 @@
+package com.yei_bai.trashplugin;
+
+/**
+ * 公共垃圾桶界面中格子的用途
+ * 每个格子的用途在加载配置时算好（{@link ConfigManager#getPublicSlot(int)}），点击时按用途查表分派
+ */
+public enum PublicTrashSlot {
+
+    ITEM,
+    PREVIOUS_PAGE,
+    NEXT_PAGE,
+    FILTER,
+    MINE,
+    SORT,
+    PAGE_INFO,
+    DECORATION
+}
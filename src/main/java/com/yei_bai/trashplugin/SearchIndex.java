@@ -0,0 +1,214 @@
+package com.yei_bai.trashplugin;
+
+import org.bukkit.ChatColor;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.*;
+
+/**
+ * 公共垃圾桶搜索索引（倒排索引），只由 {@link PublicTrash} 的写者访问
+ * 物品的显示名称、材质名称和 Lore 切分为词：英文数字按单词索引，查询时按前缀匹配（有序表上的区间查找）；
+ * 中日韩文字没有分隔符，按单字索引，查询时取最少的单字候选再逐个校验是否包含整个词
+ * 多个查询词同时满足才算匹配，结果按ID（加入顺序）排序
+ */
+public class SearchIndex {
+
+    public static final int MAX_RESULTS = 1000; // 结果上限，避免过于宽泛的查询拖慢写者
+
+    private final TreeMap<String, Set<Long>> postings = new TreeMap<>();
+
+    /**
+     * 物品的检索文本：去除颜色后的名称、材质名称和 Lore，切分后以空格连接（小写）
+     */
+    static String textOf(ItemStack itemStack) {
+        StringBuilder text = new StringBuilder();
+        text.append(itemStack.getType().name().replace('_', ' '));
+        ItemMeta meta = itemStack.getItemMeta();
+        if (meta != null) {
+            if (meta.hasDisplayName()) {
+                text.append(' ').append(ChatColor.stripColor(meta.getDisplayName()));
+            }
+            if (meta.hasLore()) {
+                for (String line : Objects.requireNonNull(meta.getLore())) {
+                    text.append(' ').append(ChatColor.stripColor(line));
+                }
+            }
+        }
+        return String.join(" ", tokenize(text.toString()));
+    }
+
+    /**
+     * 切分为小写的词，英文数字连续部分为一个词，中日韩文字连续部分为一个词
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean currentCjk = false;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            boolean cjk = isCjk(codePoint);
+            if (!cjk && !Character.isLetterOrDigit(codePoint)) {
+                flush(tokens, current);
+                continue;
+            }
+            if (current.length() > 0 && cjk != currentCjk) {
+                flush(tokens, current);
+            }
+            currentCjk = cjk;
+            current.appendCodePoint(Character.toLowerCase(codePoint));
+        }
+        flush(tokens, current);
+        return tokens;
+    }
+
+    public void add(TrashItem item) {
+        for (String key : keysOf(item.getSearchText())) {
+            postings.computeIfAbsent(key, k -> new HashSet<>()).add(item.getId());
+        }
+    }
+
+    public void remove(TrashItem item) {
+        for (String key : keysOf(item.getSearchText())) {
+            Set<Long> ids = postings.get(key);
+            if (ids != null) {
+                ids.remove(item.getId());
+                if (ids.isEmpty()) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+    }
+
+    /**
+     * 查询匹配的物品，按ID排序，最多 {@link #MAX_RESULTS} 个
+     */
+    public List<TrashItem> search(String query, PersistentSortedMap<Long, TrashItem> items) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        // 取候选最少的词作为起点，其余词逐个物品校验
+        Set<Long> best = null;
+        String bestTerm = null;
+        for (String term : terms) {
+            Set<Long> candidates = candidates(term);
+            if (best == null || candidates.size() < best.size()) {
+                best = candidates;
+                bestTerm = term;
+            }
+            if (best.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        // 候选很多时按ID顺序扫描物品、取够即停，比排序全部候选更快
+        Iterable<TrashItem> ordered;
+        if ((long) best.size() * 16 > items.size()) {
+            Set<Long> matches = best;
+            ordered = () -> items.values().stream().filter(item -> matches.contains(item.getId())).iterator();
+        } else {
+            List<Long> ids = new ArrayList<>(best);
+            Collections.sort(ids);
+            List<TrashItem> sorted = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                TrashItem item = items.get(id);
+                if (item != null) {
+                    sorted.add(item);
+                }
+            }
+            ordered = sorted;
+        }
+
+        List<TrashItem> results = new ArrayList<>();
+        for (TrashItem item : ordered) {
+            if (matchesAll(item.getSearchText(), terms, bestTerm)) {
+                results.add(item);
+                if (results.size() >= MAX_RESULTS) {
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 某个词的候选ID：英文数字为前缀区间内所有词的并集，中日韩文字为出现次数最少的单字
+     */
+    private Set<Long> candidates(String term) {
+        if (isCjk(term.codePointAt(0))) {
+            Set<Long> rarest = null;
+            for (int i = 0; i < term.length(); ) {
+                int codePoint = term.codePointAt(i);
+                i += Character.charCount(codePoint);
+                Set<Long> ids = postings.getOrDefault(new String(Character.toChars(codePoint)), Set.of());
+                if (rarest == null || ids.size() < rarest.size()) {
+                    rarest = ids;
+                }
+            }
+            return rarest;
+        }
+
+        SortedMap<String, Set<Long>> range = postings.subMap(term, term + Character.MAX_VALUE);
+        if (range.size() == 1) {
+            return range.values().iterator().next();
+        }
+        Set<Long> union = new HashSet<>();
+        for (Set<Long> ids : range.values()) {
+            union.addAll(ids);
+        }
+        return union;
+    }
+
+    private static boolean matchesAll(String text, List<String> terms, String verified) {
+        String padded = " " + text;
+        for (String term : terms) {
+            if (term.equals(verified) && !isCjk(term.codePointAt(0))) {
+                continue; // 英文前缀候选已精确匹配，中文单字候选仍需校验整个词
+            }
+            boolean found = isCjk(term.codePointAt(0)) ? text.contains(term) : padded.contains(" " + term);
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 检索文本对应的索引键：英文数字词本身，中日韩词的每个单字
+     */
+    private static Set<String> keysOf(String text) {
+        Set<String> keys = new HashSet<>();
+        for (String token : text.split(" ")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (isCjk(token.codePointAt(0))) {
+                token.codePoints().forEach(codePoint -> keys.add(new String(Character.toChars(codePoint))));
+            } else {
+                keys.add(token);
+            }
+        }
+        return keys;
+    }
+
+    static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static void flush(List<String> tokens, StringBuilder current) {
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+            current.setLength(0);
+        }
+    }
+}
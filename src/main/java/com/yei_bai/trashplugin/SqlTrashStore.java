@@ -0,0 +1,793 @@
+package com.yei_bai.trashplugin;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.*;
+import java.util.*;
+import java.util.Date;
+import java.util.function.Consumer;
+
+/**
+ * 嵌入式数据库后端（SQLite，使用服务端自带的驱动）
+ * 每条修改在事务中直接执行，无需日志和合并
+ * 使用数据库时 {@link DataManager} 不把整表载入内存：分页、计数、到期检查和按丢弃者操作都直接查询表，
+ * 材质、丢弃者UUID、丢弃时间和数量上各有索引；按加入先后翻页以上一页最后一个ID为起点（id > ? ORDER BY id LIMIT ?）
+ * 价格取决于配置，单价放在连接内的临时表中，按价格排序和按价格移除时关联计算
+ * 只有一个连接，所有访问在实例上同步
+ */
+public class SqlTrashStore implements TrashStore {
+
+    private static final String COLUMNS = "id, item, material, amount, owner, discard_time, custom_price, owner_id";
+    private static final String INSERT = "INSERT OR REPLACE INTO trash_items (" + COLUMNS
+            + ", search_text) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // 与 TrashItem#getEstimatedSize 一致
+    private static final String SIZE_EXPRESSION = "length(item) + length(owner) * 2 + 96";
+    // 与 DataManager#getItemPrice 一致：物品自带价格优先，否则单价（setprice 或配置中的价格，没有时为默认价格）乘以数量
+    private static final String PRICE_EXPRESSION = "(CASE WHEN custom_price >= 0 THEN custom_price "
+            + "ELSE COALESCE((SELECT price FROM trash_prices "
+            + "WHERE trash_prices.material = trash_items.material), ?) * amount END)";
+    private static final int BATCH_SIZE = 256;
+
+    private final JavaPlugin plugin;
+    private final File databaseFile;
+    private Connection connection;
+
+    // 物品数量、估算大小和下一个ID：首次使用时用一条聚合查询统计，之后随修改更新，为 -1 时重新统计
+    private int count = -1;
+    private long totalBytes = 0L;
+    private long nextId = 1L;
+    private Map<String, Double> unitPrices = Map.of();
+    private double defaultPrice = 0.0;
+
+    public SqlTrashStore(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.databaseFile = new File(plugin.getDataFolder(), "trash.db");
+    }
+
+    @Override
+    public String getName() {
+        return "sqlite";
+    }
+
+    @Override
+    public synchronized boolean exists() {
+        if (!databaseFile.exists()) {
+            return false;
+        }
+        try (Statement statement = getConnection().createStatement();
+             ResultSet rs = statement.executeQuery("SELECT value FROM trash_meta WHERE key = 'initialized'")) {
+            return rs.next();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 打开数据库连接并建表（驱动不可用时抛出异常，由调用方回退到文件后端）
+     */
+    public synchronized void open() throws SQLException {
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("未找到SQLite驱动", e);
+        }
+
+        connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            statement.execute("CREATE TABLE IF NOT EXISTS trash_items (" +
+                    "id INTEGER PRIMARY KEY, " +
+                    "item BLOB NOT NULL, " +
+                    "material TEXT NOT NULL, " +
+                    "amount INTEGER NOT NULL, " +
+                    "owner TEXT NOT NULL, " +
+                    "discard_time INTEGER NOT NULL, " +
+                    "custom_price REAL NOT NULL, " +
+                    "owner_id TEXT, " +
+                    "search_text TEXT NOT NULL)");
+            // 索引末尾隐含主键，同一材质（丢弃者、时间、数量）内按ID有序，翻页不需要额外排序
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_trash_material ON trash_items (material)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_trash_owner_id ON trash_items (owner_id)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_trash_time ON trash_items (discard_time)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_trash_amount ON trash_items (amount)");
+            statement.execute("CREATE TABLE IF NOT EXISTS trash_meta (key TEXT PRIMARY KEY, value INTEGER NOT NULL)");
+            // 无法解码的行移到这里保留原始数据，不参与查询，也不会被合并删除
+            statement.execute("CREATE TABLE IF NOT EXISTS trash_items_unreadable (" +
+                    "id INTEGER PRIMARY KEY, " +
+                    "item BLOB NOT NULL, " +
+                    "material TEXT NOT NULL, " +
+                    "amount INTEGER NOT NULL, " +
+                    "owner TEXT NOT NULL, " +
+                    "discard_time INTEGER NOT NULL, " +
+                    "custom_price REAL NOT NULL, " +
+                    "owner_id TEXT, " +
+                    "search_text TEXT NOT NULL)");
+            statement.execute("CREATE TEMP TABLE IF NOT EXISTS trash_prices (material TEXT PRIMARY KEY, price REAL NOT NULL)");
+        }
+        writePrices();
+        count = -1;
+    }
+
+    @Override
+    public synchronized long load(List<TrashItem> target) throws IOException {
+        try {
+            target.addAll(queryItems("SELECT " + COLUMNS + " FROM trash_items ORDER BY id"));
+            return readMeta("sequence");
+        } catch (SQLException e) {
+            throw new IOException("读取数据库失败", e);
+        }
+    }
+
+    @Override
+    public synchronized void append(List<TrashJournal.Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Connection conn = connect();
+        try {
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(INSERT);
+                 PreparedStatement remove = conn.prepareStatement("DELETE FROM trash_items WHERE id = ?");
+                 Statement statement = conn.createStatement()) {
+                for (TrashJournal.Entry entry : entries) {
+                    switch (entry.getOp()) {
+                        case TrashJournal.OP_ADD -> {
+                            bindItem(insert, entry.getItem());
+                            insert.executeUpdate();
+                        }
+                        case TrashJournal.OP_REMOVE -> {
+                            remove.setLong(1, entry.getItemId());
+                            remove.executeUpdate();
+                        }
+                        case TrashJournal.OP_CLEAR -> statement.executeUpdate("DELETE FROM trash_items");
+                    }
+                }
+                writeMeta(conn, "sequence", entries.get(entries.size() - 1).getSequence());
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            rollback(conn);
+            throw new IOException("写入数据库失败", e);
+        } finally {
+            resetAutoCommit(conn);
+            count = -1;
+        }
+    }
+
+    @Override
+    public boolean needsCompaction() {
+        return false; // 修改直接写入表中，无需合并
+    }
+
+    @Override
+    public synchronized void compact(List<TrashItem> snapshot, long sequence) throws IOException {
+        Connection conn = connect();
+        try {
+            conn.setAutoCommit(false);
+            try (Statement statement = conn.createStatement();
+                 PreparedStatement insert = conn.prepareStatement(INSERT)) {
+                statement.executeUpdate("DELETE FROM trash_items");
+                for (TrashItem item : snapshot) {
+                    bindItem(insert, item);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                writeMeta(conn, "sequence", sequence);
+                statement.executeUpdate("INSERT OR REPLACE INTO trash_meta (key, value) VALUES ('initialized', 1)");
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            rollback(conn);
+            throw new IOException("写入数据库失败", e);
+        } finally {
+            resetAutoCommit(conn);
+            count = -1;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                plugin.getLogger().warning("关闭数据库连接时出错: " + e.getMessage());
+            } finally {
+                connection = null;
+            }
+        }
+    }
+
+    /**
+     * 加入物品并分配ID（ID只增不减，删除末尾的物品后也不会复用）
+     */
+    public synchronized void insert(List<TrashItem> items) throws IOException {
+        Connection conn = connect();
+        try {
+            loadStats();
+            long id = nextId;
+            conn.setAutoCommit(false);
+            try (PreparedStatement insert = conn.prepareStatement(INSERT)) {
+                for (TrashItem item : items) {
+                    item.setId(id++);
+                    bindItem(insert, item);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                writeMeta(conn, "last_id", id - 1);
+            }
+            conn.commit();
+            nextId = id;
+            count += items.size();
+            for (TrashItem item : items) {
+                totalBytes += item.getEstimatedSize();
+            }
+        } catch (SQLException e) {
+            rollback(conn);
+            throw new IOException("写入数据库失败", e);
+        } finally {
+            resetAutoCommit(conn);
+        }
+    }
+
+    public synchronized TrashItem get(long id) throws IOException {
+        try {
+            List<TrashItem> items = queryItems("SELECT " + COLUMNS + " FROM trash_items WHERE id = ?", id);
+            return items.isEmpty() ? null : items.get(0);
+        } catch (SQLException e) {
+            throw new IOException("读取数据库失败", e);
+        }
+    }
+
+    /**
+     * 按ID删除物品，返回被删除的物品；物品已不存在时返回 null
+     */
+    public synchronized TrashItem remove(long id) throws IOException {
+        TrashItem item = get(id);
+        if (item != null) {
+            delete(List.of(item));
+        }
+        return item;
+    }
+
+    /**
+     * 删除某个玩家丢弃的全部物品（按丢弃者索引查找），返回被删除的物品
+     */
+    public synchronized List<TrashItem> removeOwner(UUID ownerId) throws IOException {
+        List<TrashItem> owned = getOwnerItems(ownerId);
+        delete(owned);
+        return owned;
+    }
+
+    /**
+     * 删除全部物品，删除前按ID分批交给 dropped（为 null 时不读取物品）
+     */
+    public synchronized void clear(Consumer<TrashItem> dropped) throws IOException {
+        if (dropped != null) {
+            collect("1", List.of(), dropped);
+        }
+        try (Statement statement = connect().createStatement()) {
+            statement.executeUpdate("DELETE FROM trash_items");
+            count = 0;
+            totalBytes = 0L;
+        } catch (SQLException e) {
+            count = -1;
+            throw new IOException("写入数据库失败", e);
+        }
+    }
+
+    /**
+     * 删除到期的物品并返回：单独设置了保留时间的材质走材质索引，其余物品走丢弃时间索引
+     *
+     * @param defaultTtl   默认保留时长（毫秒），0表示永久保留
+     * @param materialTtls 单独设置了保留时长的材质（毫秒），0表示永久保留
+     */
+    public synchronized List<TrashItem> expire(long now, long defaultTtl, Map<Material, Long> materialTtls) throws IOException {
+        List<TrashItem> expired = new ArrayList<>();
+        for (Map.Entry<Material, Long> entry : materialTtls.entrySet()) {
+            if (entry.getValue() > 0) {
+                collect("material = ? AND discard_time <= ?",
+                        List.of(entry.getKey().name(), now - entry.getValue()), expired::add);
+            }
+        }
+        if (defaultTtl > 0) {
+            StringBuilder where = new StringBuilder("discard_time <= ?");
+            List<Object> params = new ArrayList<>();
+            params.add(now - defaultTtl);
+            if (!materialTtls.isEmpty()) {
+                where.append(" AND material NOT IN (").append(placeholders(materialTtls.size())).append(')');
+                for (Material material : materialTtls.keySet()) {
+                    params.add(material.name());
+                }
+            }
+            collect(where.toString(), params, expired::add);
+        }
+        delete(expired);
+        return expired;
+    }
+
+    /**
+     * 超出数量或容量上限时按策略删除并返回被删除的物品：最早加入的，或价格最低的
+     */
+    public synchronized List<TrashItem> evict(int maxItems, long maxBytes, boolean lowestPrice) throws IOException {
+        List<TrashItem> evicted = new ArrayList<>();
+        try {
+            loadStats();
+            while ((maxItems > 0 && count > maxItems) || (maxBytes > 0 && totalBytes > maxBytes)) {
+                List<TrashItem> candidates = lowestPrice
+                        ? queryItems("SELECT " + COLUMNS + " FROM trash_items ORDER BY " + PRICE_EXPRESSION
+                        + ", id LIMIT ?", defaultPrice, BATCH_SIZE)
+                        : queryItems("SELECT " + COLUMNS + " FROM trash_items ORDER BY id LIMIT ?", BATCH_SIZE);
+                loadStats(); // 读取时可能移走了无法解码的行
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                List<TrashItem> victims = new ArrayList<>();
+                int remaining = count;
+                long bytes = totalBytes;
+                for (TrashItem item : candidates) {
+                    if (!((maxItems > 0 && remaining > maxItems) || (maxBytes > 0 && bytes > maxBytes))) {
+                        break;
+                    }
+                    victims.add(item);
+                    remaining--;
+                    bytes -= item.getEstimatedSize();
+                }
+                delete(victims);
+                evicted.addAll(victims);
+            }
+        } catch (SQLException e) {
+            throw new IOException("读取数据库失败", e);
+        }
+        return evicted;
+    }
+
+    /**
+     * 按加入先后翻页：取ID在 afterId 之后（倒序时之前）的 limit 个，只读取这一页的行
+     */
+    public synchronized List<TrashItem> pageAfter(TrashView view, boolean descending, long afterId, int limit) throws IOException {
+        List<Object> params = new ArrayList<>();
+        String where = where(view, params);
+        params.add(afterId);
+        params.add(limit);
+        try {
+            return queryItems("SELECT " + COLUMNS + " FROM trash_items WHERE " + where
+                    + (descending ? " AND id < ? ORDER BY id DESC" : " AND id > ? ORDER BY id") + " LIMIT ?", params.toArray());
+        } catch (SQLException e) {
+            throw new IOException("读取数据库失败", e);
+        }
+    }
+
+    /**
+     * 按排序方式取第 offset 个起的 limit 个（不知道上一页的最后一个ID、或按价格和数量排序时使用）
+     */
+    public synchronized List<TrashItem> page(TrashView view, TrashSort sort, int offset, int limit) throws IOException {
+        List<Object> params = new ArrayList<>();
+        String where = where(view, params);
+        String order = switch (sort) {
+            case OLDEST -> "id";
+            case NEWEST -> "id DESC";
+            case PRICE -> {
+                params.add(defaultPrice);
+                yield PRICE_EXPRESSION + ", id";
+            }
+            case AMOUNT -> "amount DESC, id DESC";
+        };
+        params.add(limit);
+        params.add(offset);
+        try {
+            return queryItems("SELECT " + COLUMNS + " FROM trash_items WHERE " + where
+                    + " ORDER BY " + order + " LIMIT ? OFFSET ?", params.toArray());
+        } catch (SQLException e) {
+            throw new IOException("读取数据库失败", e);
+        }
+    }
+
+    /**
+     * 筛选范围内的物品数量，全部物品时直接返回统计值
+     */
+    public synchronized int count(TrashView view) throws IOException {
+        try {
+            if (view.getType() == TrashView.Type.ALL) {
+                loadStats();
+                return count;
+            }
+            List<Object> params = new ArrayList<>();
+            String where = where(view, params);
+            try (PreparedStatement statement = prepare("SELECT COUNT(*) FROM trash_items WHERE " + where, params.toArray());
+                 ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new IOException("读取数据库失败", e);
+        }
+    }
+
+    /**
+     * 按名称、材质、Lore 搜索，结果按ID排序；与 {@link SearchIndex} 相同，英文数字按词的前缀匹配，中日韩文字按包含匹配
+     */
+    public synchronized List<TrashItem> search(String query, int limit) throws IOException {
+        List<String> terms = SearchIndex.tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        StringBuilder where = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+        for (String term : terms) {
+            if (where.length() > 0) {
+                where.append(" AND ");
+            }
+            String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            if (SearchIndex.isCjk(term.codePointAt(0))) {
+                where.append("search_text LIKE ? ESCAPE '\\'");
+                params.add("%" + escaped + "%");
+            } else {
+                where.append("(' ' || search_text) LIKE ? ESCAPE '\\'");
+                params.add("% " + escaped + "%");
+            }
+        }
+        params.add(limit);
+        try {
+            return queryItems("SELECT " + COLUMNS + " FROM trash_items WHERE " + where + " ORDER BY id LIMIT ?",
+                    params.toArray());
+        } catch (SQLException e) {
+            throw new IOException("读取数据库失败", e);
+        }
+    }
+
+    public synchronized List<TrashItem> getOwnerItems(UUID ownerId) throws IOException {
+        try {
+            return queryItems("SELECT " + COLUMNS + " FROM trash_items WHERE owner_id = ? ORDER BY id", ownerId.toString());
+        } catch (SQLException e) {
+            throw new IOException("读取数据库失败", e);
+        }
+    }
+
+    /**
+     * 表中出现的所有材质（只扫描材质索引）
+     */
+    public synchronized Set<Material> getMaterials() throws IOException {
+        Set<Material> materials = EnumSet.noneOf(Material.class);
+        try (Statement statement = connect().createStatement();
+             ResultSet rs = statement.executeQuery("SELECT DISTINCT material FROM trash_items")) {
+            while (rs.next()) {
+                Material material = Material.matchMaterial(rs.getString(1));
+                if (material != null) {
+                    materials.add(material);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("读取数据库失败", e);
+        }
+        return materials;
+    }
+
+    /**
+     * 每个丢弃者最近一次使用的名称
+     */
+    public synchronized Map<UUID, String> getOwnerNames() throws IOException {
+        Map<UUID, String> names = new HashMap<>();
+        try (Statement statement = connect().createStatement();
+             ResultSet rs = statement.executeQuery("SELECT owner_id, owner FROM trash_items WHERE id IN "
+                     + "(SELECT MAX(id) FROM trash_items WHERE owner_id IS NOT NULL GROUP BY owner_id)")) {
+            while (rs.next()) {
+                UUID ownerId = parseUuid(rs.getString(1));
+                if (ownerId != null) {
+                    names.put(ownerId, rs.getString(2));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("读取数据库失败", e);
+        }
+        return names;
+    }
+
+    /**
+     * 按名称查找丢弃者UUID（不区分大小写），找不到时返回 null
+     */
+    public synchronized UUID resolveOwner(String name) throws IOException {
+        try (PreparedStatement statement = prepare("SELECT owner_id FROM trash_items WHERE owner_id IS NOT NULL "
+                + "AND owner = ? COLLATE NOCASE ORDER BY id DESC LIMIT 1", name);
+             ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? parseUuid(rs.getString(1)) : null;
+        } catch (SQLException e) {
+            throw new IOException("读取数据库失败", e);
+        }
+    }
+
+    public synchronized String getOwnerName(UUID ownerId) throws IOException {
+        try (PreparedStatement statement = prepare(
+                "SELECT owner FROM trash_items WHERE owner_id = ? ORDER BY id DESC LIMIT 1", ownerId.toString());
+             ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? rs.getString(1) : null;
+        } catch (SQLException e) {
+            throw new IOException("读取数据库失败", e);
+        }
+    }
+
+    /**
+     * 设置按价格排序和按价格移除使用的单价（材质名称 -> 单价），未列出的材质使用默认价格
+     */
+    public synchronized void setPrices(Map<String, Double> unitPrices, double defaultPrice) throws IOException {
+        this.unitPrices = new HashMap<>(unitPrices);
+        this.defaultPrice = defaultPrice;
+        try {
+            connect();
+            writePrices();
+        } catch (SQLException e) {
+            throw new IOException("写入数据库失败", e);
+        }
+    }
+
+    private void writePrices() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT OR REPLACE INTO trash_prices (material, price) VALUES (?, ?)")) {
+            statement.executeUpdate("DELETE FROM trash_prices");
+            for (Map.Entry<String, Double> entry : unitPrices.entrySet()) {
+                insert.setString(1, entry.getKey());
+                insert.setDouble(2, entry.getValue());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    /**
+     * 按ID分批读取满足条件的行交给 consumer，每批 {@link #BATCH_SIZE} 个（id > ? ORDER BY id LIMIT ?）
+     */
+    private void collect(String where, List<?> params, Consumer<TrashItem> consumer) throws IOException {
+        long afterId = 0L;
+        try {
+            while (true) {
+                List<Object> batchParams = new ArrayList<>(params);
+                batchParams.add(afterId);
+                batchParams.add(BATCH_SIZE);
+                // 无法解码的行会被移走，以实际读到的最大ID作为下一批的起点
+                long[] lastId = {afterId};
+                List<TrashItem> batch = queryBatch("SELECT " + COLUMNS + " FROM trash_items WHERE " + where
+                        + " AND id > ? ORDER BY id LIMIT ?", lastId, batchParams.toArray());
+                batch.forEach(consumer);
+                if (lastId[0] == afterId) {
+                    return;
+                }
+                afterId = lastId[0];
+            }
+        } catch (SQLException e) {
+            throw new IOException("读取数据库失败", e);
+        }
+    }
+
+    /**
+     * 在一个事务中按ID删除这些物品
+     */
+    private void delete(List<TrashItem> items) throws IOException {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        Connection conn = connect();
+        try {
+            loadStats();
+            conn.setAutoCommit(false);
+            int removed = 0;
+            long bytes = 0L;
+            try (PreparedStatement remove = conn.prepareStatement("DELETE FROM trash_items WHERE id = ?")) {
+                for (TrashItem item : items) {
+                    remove.setLong(1, item.getId());
+                    if (remove.executeUpdate() > 0) {
+                        removed++;
+                        bytes += item.getEstimatedSize();
+                    }
+                }
+            }
+            conn.commit();
+            count -= removed;
+            totalBytes -= bytes;
+        } catch (SQLException e) {
+            rollback(conn);
+            count = -1;
+            throw new IOException("写入数据库失败", e);
+        } finally {
+            resetAutoCommit(conn);
+        }
+    }
+
+    private static String where(TrashView view, List<Object> params) {
+        return switch (view.getType()) {
+            case MATERIAL -> {
+                params.add(view.getMaterial().name());
+                yield "material = ?";
+            }
+            case OWNER -> {
+                params.add(view.getOwnerId().toString());
+                yield "owner_id = ?";
+            }
+            default -> "1";
+        };
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private List<TrashItem> queryItems(String sql, Object... params) throws SQLException {
+        return queryBatch(sql, new long[1], params);
+    }
+
+    /**
+     * 执行查询并解码每一行，无法解码的行移到 trash_items_unreadable 表
+     *
+     * @param lastId 返回读到的最大ID（包括无法解码的行）
+     */
+    private List<TrashItem> queryBatch(String sql, long[] lastId, Object[] params) throws SQLException {
+        List<TrashItem> items = new ArrayList<>();
+        List<Long> unreadable = new ArrayList<>();
+        try (PreparedStatement statement = prepare(sql, params);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                lastId[0] = Math.max(lastId[0], rs.getLong(1));
+                TrashItem item = readItem(rs);
+                if (item != null) {
+                    items.add(item);
+                } else {
+                    unreadable.add(rs.getLong(1));
+                }
+            }
+        }
+        if (!unreadable.isEmpty()) {
+            quarantine(unreadable);
+        }
+        return items;
+    }
+
+    private TrashItem readItem(ResultSet rs) throws SQLException {
+        TrashItem item;
+        Material material = Material.matchMaterial(rs.getString(3));
+        if (material != null) {
+            item = new TrashItem(rs.getBytes(2), material, rs.getInt(4), rs.getString(5),
+                    new Date(rs.getLong(6)), rs.getDouble(7));
+        } else {
+            // 材质在当前版本中不存在时交给 DataFixer 处理
+            try {
+                item = new TrashItem(ItemStack.deserializeBytes(rs.getBytes(2)), rs.getString(5),
+                        new Date(rs.getLong(6)), rs.getDouble(7));
+            } catch (Exception e) {
+                plugin.getLogger().warning("无法读取公共垃圾桶物品 #" + rs.getLong(1) + "（材质 "
+                        + rs.getString(3) + "），已移至 trash_items_unreadable 表保留: " + e.getMessage());
+                return null;
+            }
+        }
+        item.setId(rs.getLong(1));
+        item.setOwnerId(parseUuid(rs.getString(8))); // 无效的UUID按非玩家来源处理
+        return item;
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 把无法解码的行移到 trash_items_unreadable 表，之后的合并只清空 trash_items，不会删除它们
+     */
+    private void quarantine(List<Long> ids) throws SQLException {
+        Connection conn = getConnection();
+        try {
+            conn.setAutoCommit(false);
+            try (PreparedStatement copy = conn.prepareStatement(
+                    "INSERT OR REPLACE INTO trash_items_unreadable SELECT * FROM trash_items WHERE id = ?");
+                 PreparedStatement remove = conn.prepareStatement("DELETE FROM trash_items WHERE id = ?")) {
+                for (long id : ids) {
+                    copy.setLong(1, id);
+                    copy.executeUpdate();
+                    remove.setLong(1, id);
+                    remove.executeUpdate();
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            rollback(conn);
+            throw e;
+        } finally {
+            resetAutoCommit(conn);
+            count = -1;
+        }
+    }
+
+    /**
+     * 统计物品数量、估算大小和下一个ID（一条聚合查询，不读取物品数据）
+     */
+    private void loadStats() throws SQLException {
+        if (count >= 0) {
+            return;
+        }
+        try (Statement statement = getConnection().createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*), COALESCE(SUM(" + SIZE_EXPRESSION
+                     + "), 0), COALESCE(MAX(id), 0) FROM trash_items")) {
+            rs.next();
+            count = rs.getInt(1);
+            totalBytes = rs.getLong(2);
+            nextId = Math.max(rs.getLong(3), readMeta("last_id")) + 1;
+        }
+    }
+
+    private PreparedStatement prepare(String sql, Object... params) throws SQLException {
+        PreparedStatement statement = getConnection().prepareStatement(sql);
+        for (int i = 0; i < params.length; i++) {
+            statement.setObject(i + 1, params[i]);
+        }
+        return statement;
+    }
+
+    private Connection getConnection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            open();
+        }
+        return connection;
+    }
+
+    private Connection connect() throws IOException {
+        try {
+            return getConnection();
+        } catch (SQLException e) {
+            throw new IOException("打开数据库失败", e);
+        }
+    }
+
+    private void bindItem(PreparedStatement statement, TrashItem item) throws SQLException {
+        statement.setLong(1, item.getId());
+        statement.setBytes(2, item.getItemData());
+        statement.setString(3, item.getItemType().name());
+        statement.setInt(4, item.getAmount());
+        statement.setString(5, item.getOwner());
+        statement.setLong(6, item.getDiscardTimeMillis());
+        statement.setDouble(7, item.getCustomPrice());
+        statement.setString(8, item.getOwnerId() != null ? item.getOwnerId().toString() : null);
+        statement.setString(9, item.getSearchText());
+    }
+
+    private long readMeta(String key) throws SQLException {
+        try (PreparedStatement statement = prepare("SELECT value FROM trash_meta WHERE key = ?", key);
+             ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        }
+    }
+
+    private void writeMeta(Connection conn, String key, long value) throws SQLException {
+        try (PreparedStatement statement = conn.prepareStatement(
+                "INSERT OR REPLACE INTO trash_meta (key, value) VALUES (?, ?)")) {
+            statement.setString(1, key);
+            statement.setLong(2, value);
+            statement.executeUpdate();
+        }
+    }
+
+    private void rollback(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            plugin.getLogger().warning("回滚数据库事务时出错: " + e.getMessage());
+        }
+    }
+
+    private void resetAutoCommit(Connection conn) {
+        try {
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            plugin.getLogger().warning("恢复数据库自动提交时出错: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.yei_bai.trashplugin;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 一次扫地：独立的物品收集队列和未完成任务计数（类似 Phaser）
+ * 安排每个区域任务前登记，任务结束时到达；安排阶段本身也算一个参与者，安排完毕后到达。
+ * 计数归零时在最后到达的线程上恰好汇总一次，不再依赖固定延迟，也不会和其他次扫地的物品混在一起
+ */
+public class SweepJob {
+
+    private final int id;
+    private final long startTime = System.nanoTime();
+    private final ConcurrentLinkedQueue<ItemStack> items = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger itemCount = new AtomicInteger(0);
+    private final AtomicInteger outstanding = new AtomicInteger(1); // 安排阶段
+    private final AtomicInteger taskCount = new AtomicInteger(0);
+    private final AtomicBoolean completed = new AtomicBoolean(false);
+    private final Consumer<SweepJob> onComplete;
+
+    SweepJob(int id, Consumer<SweepJob> onComplete) {
+        this.id = id;
+        this.onComplete = onComplete;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * 登记一个即将安排的任务，须在安排之前调用
+     */
+    void register() {
+        outstanding.incrementAndGet();
+        taskCount.incrementAndGet();
+    }
+
+    /**
+     * 一个任务（或安排阶段）结束，最后一个到达时汇总
+     */
+    void arrive() {
+        if (outstanding.decrementAndGet() == 0) {
+            complete();
+        }
+    }
+
+    /**
+     * 立即汇总（如插件停止时），之后到达的任务不再触发汇总
+     */
+    void complete() {
+        if (completed.compareAndSet(false, true)) {
+            onComplete.accept(this);
+        }
+    }
+
+    public boolean isCompleted() {
+        return completed.get();
+    }
+
+    void collect(ItemStack itemStack) {
+        items.offer(itemStack);
+        itemCount.incrementAndGet();
+    }
+
+    /**
+     * 取出收集到的所有物品
+     */
+    List<ItemStack> drain() {
+        List<ItemStack> collected = new ArrayList<>();
+        ItemStack item;
+        while ((item = items.poll()) != null) {
+            collected.add(item);
+        }
+        return collected;
+    }
+
+    public int getItemCount() {
+        return itemCount.get();
+    }
+
+    public int getTaskCount() {
+        return taskCount.get();
+    }
+
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startTime) / 1_000_000L;
+    }
+}
@@ -5,44 +5,51 @@ import io.papermc.paper.threadedregions.scheduler.RegionScheduler;
 import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
-import org.bukkit.Chunk;
-import org.bukkit.Location;
 import org.bukkit.World;
-import org.bukkit.entity.Entity;
 import org.bukkit.entity.Item;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitRunnable;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class SweeperManager {
 
+
     private final JavaPlugin plugin;
     private final ConfigManager config;
     private final DataManager dataManager;
 
     private ScheduledTask sweeperTask = null;
     private BukkitRunnable bukkitRunnable = null;
-    private boolean isRunning = false;
+    // 倒计时和自适应状态由倒计时任务、扫地任务和命令（Folia下在玩家所在区域线程）共同修改：
+    // 修改一律在 synchronized 方法中进行，字段为 volatile 以便状态查询无锁读取
+    private volatile boolean isRunning = false;
     private int playerCount = 0;
     private final boolean isFolia;
     private final AtomicInteger executionCount = new AtomicInteger(0);
 
-    // 用于统计本次清扫的物品数量
-    private final AtomicInteger currentSweepCount = new AtomicInteger(0);
-    private final ConcurrentLinkedQueue<ItemStack> itemsToProcess = new ConcurrentLinkedQueue<>();
-    private final AtomicLong sweepStartTime = new AtomicLong(0);
+    // 每次扫地是一个独立的任务，各自收集物品，全部区域任务完成后汇总
+    private final AtomicInteger sweepIds = new AtomicInteger(0);
+    private final Set<SweepJob> activeJobs = ConcurrentHashMap.newKeySet();
+    private IncrementalSweepTask incrementalSweep = null; // 正在进行的分批清扫（传统Bukkit）
+    private final DroppedItemRegistry itemRegistry;
 
     // 新增：倒计时相关变量
-    private int remainingTime; // 剩余秒数
+    private volatile int remainingTime; // 剩余秒数
     private ScheduledTask countdownTaskFolia = null; // Folia倒计时任务
     private BukkitRunnable countdownTaskBukkit = null; // Bukkit倒计时任务
-    private boolean hasSentTenSecondWarning = false; // 标记是否已发送10秒警告
+    private volatile boolean hasSentTenSecondWarning = false; // 标记是否已发送10秒警告
+    private volatile int adaptiveInterval; // 自适应模式下当前的扫地间隔（秒），地面干净时逐步拉长
+    private volatile int secondsSinceSweep = 0; // 距上次扫地的秒数（自适应模式的冷却）
 
     public SweeperManager(JavaPlugin plugin, ConfigManager config, DataManager dataManager) {
         this.plugin = plugin;
@@ -58,6 +65,7 @@ public class SweeperManager {
             foliaDetected = false;
         }
         this.isFolia = foliaDetected;
+        this.itemRegistry = new DroppedItemRegistry(plugin, isFolia);
 
         // 初始化剩余时间
         this.remainingTime = config.getSweeperInterval();
@@ -135,14 +143,19 @@ public class SweeperManager {
         }
 
         try {
-            if (isFolia) {
+            if (config.isAdaptiveSweep()) {
+                // 自适应模式不使用固定间隔的任务，由倒计时决定何时扫地
+                adaptiveInterval = interval;
+                secondsSinceSweep = 0;
+            } else if (isFolia) {
                 startSweeperTaskFolia(interval);
             } else {
                 startSweeperTaskBukkit(interval);
             }
 
             isRunning = true;
-            plugin.getLogger().info("扫地功能已启动，间隔: " + interval + "秒，当前在线玩家: " + playerCount);
+            plugin.getLogger().info("扫地功能已启动" + (config.isAdaptiveSweep() ? "（自适应）" : "") + "，间隔: "
+                    + interval + "秒，当前在线玩家: " + playerCount);
 
         } catch (Exception e) {
             plugin.getLogger().warning("启动扫地任务时出错: " + e.getMessage());
@@ -167,37 +180,13 @@ public class SweeperManager {
         if (isFolia) {
             // Folia倒计时（每秒执行一次）
             GlobalRegionScheduler scheduler = Bukkit.getGlobalRegionScheduler();
-            countdownTaskFolia = scheduler.runAtFixedRate(plugin, task -> {
-                remainingTime--;
-
-                // 当剩余10秒且未发送过警告时，发送游戏内提示
-                if (remainingTime == 10 && !hasSentTenSecondWarning) {
-                    sendSweepWarningMessage();
-                    hasSentTenSecondWarning = true;
-                }
-
-                if (remainingTime <= 0) {
-                    remainingTime = config.getSweeperInterval(); // 重置
-                    hasSentTenSecondWarning = false; // 重置警告标记
-                }
-            }, 20L, 20L); // 20ticks = 1秒
+            countdownTaskFolia = scheduler.runAtFixedRate(plugin, task -> countdownTick(), 20L, 20L); // 20ticks = 1秒
         } else {
             // Bukkit倒计时（每秒执行一次）
             countdownTaskBukkit = new BukkitRunnable() {
                 @Override
                 public void run() {
-                    remainingTime--;
-
-                    // 当剩余10秒且未发送过警告时，发送游戏内提示
-                    if (remainingTime == 10 && !hasSentTenSecondWarning) {
-                        sendSweepWarningMessage();
-                        hasSentTenSecondWarning = true;
-                    }
-
-                    if (remainingTime <= 0) {
-                        remainingTime = config.getSweeperInterval(); // 重置
-                        hasSentTenSecondWarning = false; // 重置警告标记
-                    }
+                    countdownTick();
                 }
             };
             countdownTaskBukkit.runTaskTimer(plugin, 20L, 20L);
@@ -208,6 +197,106 @@ public class SweeperManager {
         }
     }
 
+    /**
+     * 倒计时每秒一次：发送10秒警告；自适应模式下还负责检查地面和服务器状况、到点时执行扫地
+     */
+    private synchronized void countdownTick() {
+        remainingTime--;
+
+        if (config.isAdaptiveSweep()) {
+            secondsSinceSweep++;
+            checkSweepPressure();
+        }
+
+        // 当剩余10秒且未发送过警告时，发送游戏内提示
+        if (remainingTime == 10 && !hasSentTenSecondWarning) {
+            sendSweepWarningMessage();
+            hasSentTenSecondWarning = true;
+        }
+
+        if (remainingTime <= 0) {
+            if (config.isAdaptiveSweep() && isRunning) {
+                // 自适应模式由倒计时触发扫地，并按扫地前的地面状况决定下一次间隔
+                int groundItems = countGroundItems();
+                executeSweep();
+                adaptiveInterval = groundItems < config.getAdaptiveCleanThreshold()
+                        ? Math.min(adaptiveInterval * 2, config.getAdaptiveMaxInterval())
+                        : config.getSweeperInterval();
+                remainingTime = adaptiveInterval;
+                if (config.isDebug()) {
+                    plugin.getLogger().info("自适应扫地：扫地前地面掉落物 " + groundItems + " 个，下一次间隔 " + adaptiveInterval + "秒");
+                }
+            } else {
+                remainingTime = config.getSweeperInterval(); // 重置
+            }
+            hasSentTenSecondWarning = false; // 重置警告标记
+        }
+    }
+
+    /**
+     * 自适应模式：地面掉落物过多、单个区块过密或服务器变卡时，把倒计时提前到10秒（照常发送警告）
+     * 每5秒检查一次，距上次扫地不足冷却时间时不检查
+     */
+    private void checkSweepPressure() {
+        if (remainingTime <= 10 || secondsSinceSweep < config.getAdaptiveCooldown() || secondsSinceSweep % 5 != 0) {
+            return;
+        }
+
+        String reason = null;
+        int groundItems = countGroundItems();
+        if (groundItems >= config.getAdaptiveMaxItems()) {
+            reason = "地面掉落物 " + groundItems + " 个";
+        } else {
+            int density = 0;
+            for (World world : Bukkit.getWorlds()) {
+                if (config.isWorldEnabled(world.getName())) {
+                    density = Math.max(density, itemRegistry.maxChunkDensity(world));
+                }
+            }
+            if (density >= config.getAdaptiveMaxItemsPerChunk()) {
+                reason = "单个区块掉落物 " + density + " 个";
+            } else if (groundItems >= config.getAdaptiveCleanThreshold()) {
+                // 地面已经干净时扫地无助于缓解卡顿
+                double tickTime = getAverageTickTime();
+                if (tickTime >= config.getAdaptiveMaxTickMs()) {
+                    reason = "平均每刻耗时 " + String.format("%.1f", tickTime) + "ms";
+                }
+            }
+        }
+
+        if (reason != null) {
+            remainingTime = 10;
+            plugin.getLogger().info("扫地压力过高（" + reason + "），10秒后提前扫地");
+        }
+    }
+
+    private int countGroundItems() {
+        int count = 0;
+        for (World world : Bukkit.getWorlds()) {
+            if (config.isWorldEnabled(world.getName())) {
+                count += itemRegistry.size(world);
+            }
+        }
+        return count;
+    }
+
+    private double getAverageTickTime() {
+        try {
+            return Bukkit.getAverageTickTime();
+        } catch (UnsupportedOperationException e) {
+            return 0.0; // 服务端不提供每刻耗时（如部分Folia版本）时不按卡顿触发
+        }
+    }
+
+    private void executeSweep() {
+        secondsSinceSweep = 0;
+        if (isFolia) {
+            executeSweeperTaskFolia();
+        } else {
+            executeSweeperTaskBukkit();
+        }
+    }
+
     /**
      * 发送扫地前10秒警告消息
      */
@@ -254,8 +343,7 @@ public class SweeperManager {
 
                 // 执行清扫后重置倒计时和警告标记
                 executeSweeperTaskFolia();
-                remainingTime = config.getSweeperInterval();
-                hasSentTenSecondWarning = false;
+                resetAfterSweep();
 
             }, intervalTicks, intervalTicks);
 
@@ -284,8 +372,7 @@ public class SweeperManager {
                         plugin.getLogger().info("Bukkit调度器触发扫地任务 [#" + count + "]");
                     }
                     executeSweeperTaskBukkit();
-                    remainingTime = config.getSweeperInterval(); // 执行清扫后重置倒计时
-                    hasSentTenSecondWarning = false; // 重置警告标记
+                    resetAfterSweep(); // 执行清扫后重置倒计时和警告标记
                 }
             };
 
@@ -361,10 +448,6 @@ public class SweeperManager {
      * 在Folia服务器中执行扫地任务（修复线程安全+编译错误）
      */
     private void executeSweeperTaskFolia() {
-        sweepStartTime.set(System.currentTimeMillis());
-        currentSweepCount.set(0);
-        itemsToProcess.clear();
-
         if (config.isDebug()) {
             plugin.getLogger().info("=== 开始执行扫地任务 (Folia) ===");
         }
@@ -376,8 +459,12 @@ public class SweeperManager {
             return;
         }
 
-        // 用于统计处理区块数
-        AtomicInteger processedChunks = new AtomicInteger(0);
+        SweepJob job = startJob();
+
+        // 用于统计掉落物数和区域任务数
+        int registeredItems = 0;
+        int scheduledTasks = 0;
+        RegionScheduler regionScheduler = Bukkit.getRegionScheduler();
 
         for (World world : Bukkit.getWorlds()) {
             String worldName = world.getName();
@@ -390,119 +477,70 @@ public class SweeperManager {
                 continue;
             }
 
-            if (config.isDebug()) {
-                plugin.getLogger().info("在世界 " + worldName + " 中查找掉落物...");
+            // 只取登记的掉落物，按区域分段分组，每组只安排一个区域任务
+            Map<Long, List<Item>> sections = new HashMap<>();
+            for (Map.Entry<Long, List<Item>> bucket : itemRegistry.snapshot(world).entrySet()) {
+                sections.computeIfAbsent(DroppedItemRegistry.sectionKey(bucket.getKey()), key -> new ArrayList<>())
+                        .addAll(bucket.getValue());
+                registeredItems += bucket.getValue().size();
             }
 
-            // 获取所有已加载的区块
-            Chunk[] loadedChunks = world.getLoadedChunks();
-            if (config.isDebug()) {
-                plugin.getLogger().info("已加载区块数: " + loadedChunks.length);
-            }
-
-            for (Chunk chunk : loadedChunks) {
-                processedChunks.incrementAndGet();
-
-                // 获取区块中心位置用于区域调度
-                int centerX = chunk.getX() * 16 + 8;
-                int centerZ = chunk.getZ() * 16 + 8;
-                Location center = new Location(world, centerX, 64, centerZ);
-
-                // 为每个区块安排一个区域任务（区块所属线程）
-                RegionScheduler regionScheduler = Bukkit.getRegionScheduler();
-                regionScheduler.run(plugin, world, center.getBlockX(), center.getBlockZ(), regionTask -> {
+            for (Map.Entry<Long, List<Item>> section : sections.entrySet()) {
+                int chunkX = DroppedItemRegistry.chunkX(section.getKey()) << DroppedItemRegistry.REGION_SECTION_SHIFT;
+                int chunkZ = DroppedItemRegistry.chunkZ(section.getKey()) << DroppedItemRegistry.REGION_SECTION_SHIFT;
+                List<Item> items = section.getValue();
+                job.register();
+                regionScheduler.run(plugin, world, chunkX, chunkZ, regionTask -> {
                     try {
-                        // 1. 区块线程中安全获取实体列表
-                        Entity[] entities = chunk.getEntities();
-
-                        // 2. 遍历实体，将每个实体的操作调度到「实体自身所属线程」
-                        for (Entity entity : entities) {
-                            // 跳过空实体
-                            if (entity == null || entity.getLocation().getWorld() == null) {
-                                continue;
-                            }
-
-                            // 核心修复：补充第三个参数null，解决编译错误 + 线程安全
-                            entity.getScheduler().run(plugin, entityTask -> {
-                                try {
-                                    // 3. 此时在实体所属线程，安全操作实体
-                                    if (entity instanceof Item itemEntity) {
-                                        ItemStack itemStack = itemEntity.getItemStack();
-
-                                        // 检查物品是否有效
-                                        if (itemStack.getType() == org.bukkit.Material.AIR || itemStack.getAmount() <= 0) {
-                                            return;
-                                        }
-
-                                        // 检查黑名单
-                                        if (config.isBlacklisted(itemStack.getType())) {
-                                            return;
-                                        }
-
-                                        // 添加到待处理列表（线程安全队列）
-                                        itemsToProcess.offer(itemStack.clone());
-                                        currentSweepCount.incrementAndGet();
-
-                                        if (config.isDebug()) {
-                                            plugin.getLogger().info("找到可清理物品: " + itemStack.getType() + " x" + itemStack.getAmount());
-                                        }
-
-                                        // 安全移除实体（在实体所属线程执行）
-                                        itemEntity.remove();
-                                    }
-                                } catch (Exception e) {
-                                    plugin.getLogger().warning("处理实体时出错: " + e.getMessage());
-                                }
-                            }, null); // 关键：补充第三个参数null，解决编译错误
+                        for (Item itemEntity : items) {
+                            sweepItem(job, itemEntity);
                         }
-
                     } catch (Exception e) {
-                        plugin.getLogger().warning("处理区块时出错: " + e.getMessage());
-                        plugin.getLogger().log(java.util.logging.Level.SEVERE, "处理区块时发生异常", e);
+                        plugin.getLogger().log(java.util.logging.Level.SEVERE, "处理掉落物时发生异常", e);
+                    } finally {
+                        job.arrive();
                     }
                 });
+                scheduledTasks++;
             }
         }
 
         if (config.isDebug()) {
-            plugin.getLogger().info("已安排 " + processedChunks.get() + " 个区块的处理任务");
+            plugin.getLogger().info("已为 " + registeredItems + " 个登记的掉落物安排 " + scheduledTasks + " 个区域任务");
         }
 
-        // 等待一小段时间让任务完成，然后处理收集到的物品
-        if (isFolia) {
-            GlobalRegionScheduler globalScheduler = Bukkit.getGlobalRegionScheduler();
-            globalScheduler.runDelayed(plugin, task -> processCollectedItems(), 20L); // 延迟1秒(20 ticks)处理
-        } else {
-            Bukkit.getScheduler().runTaskLater(plugin, this::processCollectedItems, 20L);
-        }
+        // 安排阶段结束；最后一个区域任务完成时汇总（没有区块时立即汇总）
+        job.arrive();
+    }
+
+    private SweepJob startJob() {
+        SweepJob job = new SweepJob(sweepIds.incrementAndGet(), this::processCollectedItems);
+        activeJobs.add(job);
+        return job;
     }
 
     /**
-     * 处理收集到的物品
+     * 汇总一次扫地收集到的物品，在该次扫地最后完成的任务所在线程上调用
      */
-    private void processCollectedItems() {
-        int totalCleaned = currentSweepCount.get();
+    private void processCollectedItems(SweepJob job) {
+        activeJobs.remove(job);
+        int totalCleaned = job.getItemCount();
 
         if (totalCleaned > 0) {
-            long duration = System.currentTimeMillis() - sweepStartTime.get();
-
-            // 将收集到的物品添加到公共垃圾桶
-            int addedCount = 0;
-            while (!itemsToProcess.isEmpty()) {
-                ItemStack item = itemsToProcess.poll();
-                if (item != null) {
-                    dataManager.addPublicTrashItem(item, "扫地系统");
-                    addedCount++;
-                }
-            }
+            // 将收集到的物品一次性批量添加到公共垃圾桶
+            List<ItemStack> collected = job.drain();
+            int addedCount = dataManager.addPublicTrashItems(collected, "扫地系统");
 
             // 记录清理结果
-            plugin.getLogger().info("扫地功能完成，共清理了 " + totalCleaned + " 个物品，其中 " + addedCount + " 个已添加到公共垃圾桶，耗时 " + duration + "ms");
+            plugin.getLogger().info("扫地功能完成 [#" + job.getId() + "]，共清理了 " + totalCleaned + " 个物品，其中 "
+                    + addedCount + " 个已添加到公共垃圾桶，"
+                    + (job.getTaskCount() > 0 ? "区域任务 " + job.getTaskCount() + " 个，" : "")
+                    + "耗时 " + job.getElapsedMillis() + "ms");
 
             // 发送广播消息
             sendBroadcastMessage(totalCleaned);
         } else if (config.isDebug()) {
-            plugin.getLogger().info("本次扫地未找到可清理的物品");
+            plugin.getLogger().info("本次扫地 [#" + job.getId() + "] 未找到可清理的物品，耗时 " + job.getElapsedMillis() + "ms");
         }
     }
 
@@ -510,9 +548,12 @@ public class SweeperManager {
      * 在传统Bukkit服务器中执行扫地任务
      */
     private void executeSweeperTaskBukkit() {
-        sweepStartTime.set(System.currentTimeMillis());
-        currentSweepCount.set(0);
-        itemsToProcess.clear();
+        if (incrementalSweep != null) {
+            if (config.isDebug()) {
+                plugin.getLogger().info("上一次分批清扫尚未完成，跳过本次扫地");
+            }
+            return;
+        }
 
         if (config.isDebug()) {
             plugin.getLogger().info("=== 开始执行扫地任务 (Bukkit) ===");
@@ -525,7 +566,14 @@ public class SweeperManager {
             return;
         }
 
-        int cleanedCount = 0;
+        SweepJob job = startJob();
+
+        if (config.isIncrementalSweep()) {
+            // 分批清扫：每刻只处理一部分区块
+            incrementalSweep = new IncrementalSweepTask(job);
+            incrementalSweep.runTaskTimer(plugin, 0L, 1L);
+            return;
+        }
 
         for (World world : Bukkit.getWorlds()) {
             String worldName = world.getName();
@@ -542,53 +590,154 @@ public class SweeperManager {
                 plugin.getLogger().info("在世界 " + worldName + " 中查找掉落物...");
             }
 
-            // 获取所有掉落物
-            List<Entity> entities = world.getEntities();
-            List<Item> itemsToRemove = new ArrayList<>();
-
-            for (Entity entity : entities) {
-                if (entity instanceof Item itemEntity) {
-                    ItemStack itemStack = itemEntity.getItemStack();
-
-                    // 检查物品是否有效
-                    if (itemStack.getType() == org.bukkit.Material.AIR || itemStack.getAmount() <= 0) {
-                        continue;
-                    }
+            // 只遍历登记的掉落物
+            int found = job.getItemCount();
+            for (List<Item> items : itemRegistry.snapshot(world).values()) {
+                for (Item itemEntity : items) {
+                    sweepItem(job, itemEntity);
+                }
+            }
 
-                    // 检查黑名单
-                    if (config.isBlacklisted(itemStack.getType())) {
-                        continue;
-                    }
+            if (config.isDebug()) {
+                plugin.getLogger().info("在世界 " + worldName + " 中找到 " + (job.getItemCount() - found) + " 个可清理物品");
+            }
+        }
 
-                    // 添加到待处理列表
-                    itemsToProcess.offer(itemStack.clone());
-                    itemsToRemove.add(itemEntity);
-                    cleanedCount++;
+        // 处理收集到的物品
+        job.arrive();
+    }
 
-                    if (config.isDebug()) {
-                        plugin.getLogger().info("找到可清理物品: " + itemStack.getType() + " x" + itemStack.getAmount());
-                    }
+    /**
+     * 清扫一个登记的掉落物。Folia 上掉落物可能已漂移到其他区域，此时交给它自己的调度器
+     */
+    private void sweepItem(SweepJob job, Item itemEntity) {
+        if (isFolia && !Bukkit.isOwnedByCurrentRegion(itemEntity)) {
+            job.register();
+            ScheduledTask scheduled = itemEntity.getScheduler().run(plugin, entityTask -> {
+                try {
+                    removeIfCollected(job, itemEntity);
+                } finally {
+                    job.arrive();
                 }
+            }, job::arrive);
+            if (scheduled == null) {
+                job.arrive(); // 实体已被移除
             }
+            return;
+        }
+        removeIfCollected(job, itemEntity);
+    }
 
-            if (config.isDebug()) {
-                plugin.getLogger().info("在世界 " + worldName + " 中找到 " + itemsToRemove.size() + " 个可清理物品");
+    private void removeIfCollected(SweepJob job, Item itemEntity) {
+        if (job.isCompleted()) {
+            // 已被强制汇总（插件停止），不再移除，留给下次扫地
+            return;
+        }
+        if (!itemEntity.isValid()) {
+            // 已离开世界但没有收到事件
+            itemRegistry.unregister(itemEntity);
+            return;
+        }
+        if (collectItem(job, itemEntity)) {
+            itemEntity.remove();
+            if (job.isCompleted()) {
+                // 收集的同时被强制汇总，汇总可能已取走队列，剩下的物品直接交给公共垃圾桶
+                List<ItemStack> late = job.drain();
+                if (!late.isEmpty()) {
+                    dataManager.addPublicTrashItems(late, "扫地系统");
+                }
             }
+        }
+    }
 
-            // 移除实体
-            for (Item item : itemsToRemove) {
-                try {
-                    item.remove();
-                } catch (Exception e) {
-                    plugin.getLogger().warning("移除物品实体时出错: " + e.getMessage());
+    /**
+     * 检查掉落物是否应清理，应清理时记入本次清扫（由调用方移除实体）
+     */
+    private boolean collectItem(SweepJob job, Item itemEntity) {
+        ItemStack itemStack = itemEntity.getItemStack();
+
+        // 检查物品是否有效
+        if (itemStack.getType() == org.bukkit.Material.AIR || itemStack.getAmount() <= 0) {
+            return false;
+        }
+
+        // 检查黑名单
+        if (config.isBlacklisted(itemStack.getType())) {
+            return false;
+        }
+
+        job.collect(itemStack.clone());
+
+        if (config.isDebug()) {
+            plugin.getLogger().info("找到可清理物品: " + itemStack.getType() + " x" + itemStack.getAmount());
+        }
+        return true;
+    }
+
+    /**
+     * 分批清扫（传统Bukkit）：用游标依次遍历各世界登记的掉落物（按区块分组），每刻处理到区块数或耗时上限后暂停，
+     * 下一刻从游标处继续；整轮处理完后统一加入公共垃圾桶
+     */
+    private class IncrementalSweepTask extends BukkitRunnable {
+
+        private final SweepJob job;
+        private final Deque<World> worlds = new ArrayDeque<>();
+        private List<List<Item>> buckets = new ArrayList<>();
+        private int cursor = 0;
+        private int processedChunks = 0;
+        private int ticks = 0;
+
+        IncrementalSweepTask(SweepJob job) {
+            this.job = job;
+            for (World world : Bukkit.getWorlds()) {
+                if (config.isWorldEnabled(world.getName())) {
+                    worlds.add(world);
+                } else if (config.isDebug()) {
+                    plugin.getLogger().info("世界 " + world.getName() + " 未启用扫地功能，跳过");
                 }
             }
         }
 
-        currentSweepCount.set(cleanedCount);
+        @Override
+        public void run() {
+            ticks++;
+            int maxChunks = config.getSweepChunksPerTick();
+            long deadline = System.nanoTime() + config.getSweepMicrosPerTick() * 1000L;
+
+            int done = 0;
+            while (done < maxChunks && System.nanoTime() < deadline) {
+                if (cursor >= buckets.size()) {
+                    // 当前世界处理完，取下一个世界登记的掉落物（按区块分组）
+                    World world = worlds.poll();
+                    if (world == null) {
+                        finish();
+                        return;
+                    }
+                    buckets = new ArrayList<>(itemRegistry.snapshot(world).values());
+                    cursor = 0;
+                    continue;
+                }
+
+                List<Item> items = buckets.set(cursor++, null);
+                for (Item itemEntity : items) {
+                    sweepItem(job, itemEntity);
+                }
+                done++;
+                processedChunks++;
+            }
+        }
 
-        // 延迟处理收集到的物品
-        Bukkit.getScheduler().runTaskLater(plugin, this::processCollectedItems, 1L);
+        /**
+         * 结束本轮清扫（正常完成或插件停止时），已移除的物品照常加入公共垃圾桶
+         */
+        void finish() {
+            cancel();
+            incrementalSweep = null;
+            if (config.isDebug()) {
+                plugin.getLogger().info("分批清扫完成，处理了 " + processedChunks + " 个区块，用时 " + ticks + " 刻");
+            }
+            job.arrive();
+        }
     }
 
     /**
@@ -616,12 +765,26 @@ public class SweeperManager {
     /**
      * 停止所有任务
      */
-    public void stop() {
+    public synchronized void stop() {
+        if (incrementalSweep != null) {
+            incrementalSweep.finish();
+        }
+        // 还有区域任务未完成的扫地立即汇总，已移除的物品不丢失
+        for (SweepJob job : activeJobs) {
+            job.complete();
+        }
         stopSweeperTask();
         stopCountdownTask(); // 新增：停止倒计时
         playerCount = 0;
     }
 
+    /**
+     * 地面掉落物登记表，需注册为事件监听器
+     */
+    public DroppedItemRegistry getItemRegistry() {
+        return itemRegistry;
+    }
+
     /**
      * 检查扫地任务是否在运行
      */
@@ -632,39 +795,42 @@ public class SweeperManager {
     /**
      * 立即执行一次扫地任务
      */
-    public void sweepNow() {
+    public synchronized void sweepNow() {
         if (config.isDebug()) {
             plugin.getLogger().info("手动执行扫地任务");
         }
         if (config.isSweeperEnabled()) {
-            if (isFolia) {
-                executeSweeperTaskFolia();
-            } else {
-                executeSweeperTaskBukkit();
-            }
+            executeSweep();
             // 手动执行后重置倒计时和警告标记
-            remainingTime = config.getSweeperInterval();
-            hasSentTenSecondWarning = false;
+            resetAfterSweep();
         } else {
             plugin.getLogger().warning("扫地功能已禁用，无法执行");
         }
     }
 
+    private synchronized void resetAfterSweep() {
+        remainingTime = config.getSweeperInterval();
+        hasSentTenSecondWarning = false;
+    }
+
     // 新增：获取剩余时间（秒）
     public int getRemainingTime() {
         return remainingTime;
     }
 
     // 新增：配置重载时重置倒计时
-    public void resetCountdown() {
+    public synchronized void resetCountdown() {
         int newInterval = config.getSweeperInterval();
         this.remainingTime = newInterval;
+        this.adaptiveInterval = newInterval;
         this.hasSentTenSecondWarning = false; // 重置警告标记
         if (config.isDebug()) {
             plugin.getLogger().info("配置重载，倒计时已重置为: " + newInterval + "秒");
         }
-        // 重启倒计时任务以应用新间隔
+        // 重启扫地和倒计时任务以应用新间隔（可能切换了自适应模式）
         if (isRunning) {
+            stopSweeperTask();
+            startSweeperTask();
             startCountdownTask();
         }
     }
@@ -8,25 +8,69 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
 
+/**
+ * 公共垃圾桶中的物品
+ * 物品只以序列化字节保存，另外保留材质、数量等索引字段；
+ * 真正的 ItemStack 仅在渲染页面或购买时解码，并放入有上限的解码缓存
+ */
 @SerializableAs("TrashItem")
 public class TrashItem implements ConfigurationSerializable {
 
-    private final ItemStack itemStack;
+    // 解码缓存上限（约为二十个满页）
+    private static final int DECODE_CACHE_SIZE = 1024;
+    private static final Map<TrashItem, ItemStack> DECODE_CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<TrashItem, ItemStack> eldest) {
+                    return size() > DECODE_CACHE_SIZE;
+                }
+            });
+
+    private long id = 0; // 由 DataManager 分配的自增ID，0表示尚未分配
+    private final byte[] itemData; // ItemStack.serializeAsBytes()
+    private final Material itemType;
+    private final int amount;
     private final String owner;
+    private UUID ownerId; // 丢弃者UUID，扫地系统等非玩家来源为 null
     private Date discardTime;
     private double customPrice = -1; // -1表示使用默认价格
+    private volatile String searchText; // 搜索索引用的检索文本，首次使用时计算
+    private int hash = 0;
 
     public TrashItem(ItemStack itemStack, String owner, Date discardTime) {
-        this.itemStack = itemStack.clone();
+        this.itemData = itemStack.getType().isAir() ? new byte[0] : itemStack.serializeAsBytes();
+        this.itemType = itemStack.getType();
+        this.amount = itemStack.getAmount();
+        this.owner = owner;
+        this.discardTime = discardTime;
+        this.searchText = SearchIndex.textOf(itemStack); // 手上已有物品，无需日后再解码
+    }
+
+    public TrashItem(ItemStack itemStack, String owner, Date discardTime, double customPrice) {
+        this(itemStack, owner, discardTime);
+        this.customPrice = customPrice;
+    }
+
+    /**
+     * 从存储中直接构造，不解码物品
+     */
+    public TrashItem(byte[] itemData, Material itemType, int amount, String owner, Date discardTime, double customPrice) {
+        this.itemData = itemData;
+        this.itemType = itemType;
+        this.amount = amount;
         this.owner = owner;
         this.discardTime = discardTime;
+        this.customPrice = customPrice;
     }
 
     @Override
     public @NotNull Map<String, Object> serialize() {
         Map<String, Object> map = new HashMap<>();
-        map.put("item", itemStack.serialize()); // 序列化 ItemStack 为 Map
+        map.put("item", getItemStack().serialize()); // 序列化 ItemStack 为 Map
         map.put("owner", owner);
+        if (ownerId != null) {
+            map.put("ownerId", ownerId.toString());
+        }
         map.put("discardTime", discardTime.getTime()); // 存储时间戳
         if (customPrice >= 0) {
             map.put("customPrice", customPrice);
@@ -38,15 +82,26 @@ public class TrashItem implements ConfigurationSerializable {
     public TrashItem(Map<String, Object> map) {
         // 处理旧版数据兼容
         Object itemObj = map.get("item");
+        ItemStack itemStack;
         if (itemObj instanceof Map) {
-            this.itemStack = ItemStack.deserialize((Map<String, Object>) itemObj);
+            itemStack = ItemStack.deserialize((Map<String, Object>) itemObj);
         } else if (itemObj instanceof ItemStack) {
-            this.itemStack = (ItemStack) itemObj;
+            itemStack = (ItemStack) itemObj;
         } else {
-            this.itemStack = new ItemStack(Material.AIR);
+            itemStack = new ItemStack(Material.AIR);
         }
+        this.itemData = itemStack.getType().isAir() ? new byte[0] : itemStack.serializeAsBytes();
+        this.itemType = itemStack.getType();
+        this.amount = itemStack.getAmount();
 
         this.owner = (String) map.getOrDefault("owner", "Unknown");
+        if (map.get("ownerId") instanceof String ownerIdString) {
+            try {
+                this.ownerId = UUID.fromString(ownerIdString);
+            } catch (IllegalArgumentException ignored) {
+                // 无效的UUID按非玩家来源处理
+            }
+        }
 
         // 处理 discardTime
         Object timeObj = map.get("discardTime");
@@ -76,35 +131,104 @@ public class TrashItem implements ConfigurationSerializable {
         return new TrashItem(map);
     }
 
+    /**
+     * 解码物品（优先使用解码缓存），返回副本
+     */
     public ItemStack getItemStack() {
-        return itemStack.clone();
+        if (itemData.length == 0) {
+            return new ItemStack(Material.AIR);
+        }
+
+        ItemStack decoded = DECODE_CACHE.get(this);
+        if (decoded == null) {
+            decoded = ItemStack.deserializeBytes(itemData);
+            DECODE_CACHE.put(this, decoded);
+        }
+        return decoded.clone();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * 分配ID，仅在物品加入公共垃圾桶或从存储加载时调用
+     */
+    void setId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * 序列化后的物品字节，仅供存储层使用，调用方不得修改
+     */
+    byte[] getItemData() {
+        return itemData;
+    }
+
+    /**
+     * 搜索索引用的检索文本；从存储加载的物品首次调用时解码计算（不经过解码缓存），之后复用
+     */
+    String getSearchText() {
+        String text = searchText;
+        if (text == null) {
+            text = itemData.length == 0 ? itemType.name().toLowerCase().replace('_', ' ')
+                    : SearchIndex.textOf(ItemStack.deserializeBytes(itemData));
+            searchText = text;
+        }
+        return text;
+    }
+
+    /**
+     * 估算物品在内存中占用的字节数（序列化数据 + 丢弃者名称 + 对象和索引开销）
+     */
+    public int getEstimatedSize() {
+        return itemData.length + owner.length() * 2 + 96;
     }
 
     public Material getItemType() {
-        return itemStack.getType();
+        return itemType;
+    }
+
+    public int getAmount() {
+        return amount;
     }
 
     public String getOwner() {
         return owner;
     }
 
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * 设置丢弃者UUID，仅在加入公共垃圾桶或从存储加载时调用
+     */
+    void setOwnerId(UUID ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public long getDiscardTimeMillis() {
+        return discardTime.getTime();
+    }
+
+    public double getCustomPrice() {
+        return customPrice;
+    }
+
     public String getFormattedTime() {
         return TrashPlugin.getInstance().getDataManager().formatDate(discardTime);
     }
 
+    // 价格统一由 DataManager#getItemPrice 计算，显示、排序与扣费一致
     public double getPrice() {
-        if (customPrice >= 0) {
-            return customPrice;
-        }
-
-        ConfigManager config = TrashPlugin.getInstance().getConfigManager();
-        return config.getPrice(itemStack.getType()) * itemStack.getAmount();
+        return TrashPlugin.getInstance().getDataManager().getItemPrice(this);
     }
 
     public String getDurabilityString() {
-        if (itemStack.getType().getMaxDurability() > 0) {
-            int durability = itemStack.getType().getMaxDurability() - itemStack.getDurability();
-            return durability + "/" + itemStack.getType().getMaxDurability();
+        if (itemType.getMaxDurability() > 0) {
+            int durability = itemType.getMaxDurability() - getItemStack().getDurability();
+            return durability + "/" + itemType.getMaxDurability();
         }
         return "N/A";
     }
@@ -114,13 +238,20 @@ public class TrashItem implements ConfigurationSerializable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         TrashItem trashItem = (TrashItem) o;
-        return Objects.equals(itemStack, trashItem.itemStack) &&
+        return hashCode() == trashItem.hashCode() &&
                 Objects.equals(owner, trashItem.owner) &&
-                Objects.equals(discardTime, trashItem.discardTime);
+                Objects.equals(discardTime, trashItem.discardTime) &&
+                Arrays.equals(itemData, trashItem.itemData);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(itemStack, owner, discardTime);
+        // 序列化数据较长，缓存哈希值避免解码缓存查找时重复计算
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(Arrays.hashCode(itemData), owner, discardTime);
+            hash = h;
+        }
+        return h;
     }
-}
\ No newline at end of file
+}
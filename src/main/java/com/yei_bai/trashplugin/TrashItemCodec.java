@@ -0,0 +1,204 @@
+package com.yei_bai.trashplugin;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * 公共垃圾桶二进制存储格式
+ * 快照文件: [魔数 int][版本 int][日志序号 long][数量 int] + 若干条 [长度 int][记录]
+ * 记录内容: [记录标记][ID][物品字节 (ItemStack.serializeAsBytes)][材质][数量][丢弃者][丢弃者UUID][丢弃时间][自定义价格]
+ * 旧版数据只有 data.yml，由 {@link DataManager} 一次性迁移为此格式
+ * 读取时不解码物品，材质和数量直接从记录中取得
+ */
+public final class TrashItemCodec {
+
+    private static final int MAGIC = 0x54525348; // "TRSH"
+    private static final int FORMAT_VERSION = 1;
+    private static final byte RECORD_MARKER = (byte) 0xE1;
+    // 单条记录（含物品字节）的长度上限，超过视为数据损坏
+    static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private TrashItemCodec() {
+    }
+
+    /**
+     * 快照读取结果
+     */
+    public static class Snapshot {
+        private final long sequence;
+        private final int count;
+
+        private Snapshot(long sequence, int count) {
+            this.sequence = sequence;
+            this.count = count;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    public static byte[] encode(TrashItem item) {
+        try {
+            byte[] itemBytes = item.getItemData();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(itemBytes.length + 64);
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeByte(RECORD_MARKER);
+            out.writeLong(item.getId());
+            out.writeInt(itemBytes.length);
+            out.write(itemBytes);
+            out.writeUTF(item.getItemType().name());
+            out.writeInt(item.getAmount());
+            out.writeUTF(item.getOwner());
+            UUID ownerId = item.getOwnerId();
+            out.writeBoolean(ownerId != null);
+            if (ownerId != null) {
+                out.writeLong(ownerId.getMostSignificantBits());
+                out.writeLong(ownerId.getLeastSignificantBits());
+            }
+            out.writeLong(item.getDiscardTimeMillis());
+            out.writeDouble(item.getCustomPrice());
+            out.flush();
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            // 写入内存缓冲区不会发生IO错误
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static TrashItem decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte marker = in.readByte();
+        if (marker != RECORD_MARKER) {
+            throw new IOException("未知的记录格式: " + marker);
+        }
+        long id = in.readLong();
+        byte[] itemBytes = readBlock(in);
+        Material type = Material.matchMaterial(in.readUTF());
+        int amount = in.readInt();
+        String owner = in.readUTF();
+        UUID ownerId = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+        long discardTime = in.readLong();
+        double customPrice = in.readDouble();
+
+        TrashItem item;
+        if (type == null) {
+            // 材质在当前版本中不存在时交给 DataFixer 处理
+            item = new TrashItem(ItemStack.deserializeBytes(itemBytes), owner, new Date(discardTime), customPrice);
+        } else {
+            item = new TrashItem(itemBytes, type, amount, owner, new Date(discardTime), customPrice);
+        }
+        item.setId(id);
+        item.setOwnerId(ownerId);
+        return item;
+    }
+
+    /**
+     * 通过 FileChannel 写入快照：先写临时文件，强制落盘后原子替换
+     */
+    public static void writeSnapshot(Path target, Iterable<TrashItem> items, int count, long sequence) throws IOException {
+        Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(sequence).putInt(count);
+
+            for (TrashItem item : items) {
+                byte[] record = encode(item);
+                if (buffer.remaining() < 4 + record.length) {
+                    drain(channel, buffer);
+                }
+                if (buffer.capacity() < 4 + record.length) {
+                    // 超大记录（如写满的书）单独写出
+                    channel.write(ByteBuffer.allocate(4).putInt(0, record.length));
+                    channel.write(ByteBuffer.wrap(record));
+                    continue;
+                }
+                buffer.putInt(record.length).put(record);
+            }
+            drain(channel, buffer);
+            channel.force(true);
+        }
+
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 流式读取快照并逐条解码，内存占用与单条记录相当，不受文件大小限制
+     */
+    public static Snapshot readSnapshot(Path source, Consumer<TrashItem> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source), 64 * 1024))) {
+            int version;
+            long sequence;
+            int count;
+            try {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("不是有效的垃圾桶快照文件");
+                }
+                version = in.readInt();
+                sequence = in.readLong();
+                count = in.readInt();
+            } catch (EOFException e) {
+                throw new IOException("快照文件过短: " + Files.size(source));
+            }
+            if (version != FORMAT_VERSION) {
+                throw new IOException("不支持的快照版本: " + version);
+            }
+            if (count < 0) {
+                throw new IOException("快照记录数无效: " + count);
+            }
+
+            for (int i = 0; i < count; i++) {
+                byte[] record;
+                try {
+                    record = readBlock(in);
+                } catch (EOFException e) {
+                    // 快照是写完后原子替换的，不完整说明文件已损坏，不能当作正常结尾
+                    throw new IOException("快照文件在第 " + (i + 1) + "/" + count + " 条记录处损坏", e);
+                }
+                consumer.accept(decode(record));
+            }
+            return new Snapshot(sequence, count);
+        }
+    }
+
+    /**
+     * 读取 [长度 int][字节] 块；长度为负、超过上限或剩余字节不足时抛出 EOFException，按文件末尾损坏处理
+     * 按实际读到的字节分配数组，损坏的长度字段不会导致预先分配巨大的数组
+     */
+    static byte[] readBlock(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_RECORD_SIZE) {
+            throw new EOFException("记录长度无效: " + length);
+        }
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("记录不完整: " + bytes.length + "/" + length);
+        }
+        return bytes;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,158 @@
+package com.yei_bai.trashplugin;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 公共垃圾桶修改日志（追加写入）
+ * 每条记录: [序号 long][操作 byte][内容]，启动时在快照基础上重放
+ * 物品内容使用 {@link TrashItemCodec} 二进制编码
+ */
+public class TrashJournal {
+
+    public static final byte OP_ADD = 1;
+    public static final byte OP_REMOVE = 2;
+    public static final byte OP_CLEAR = 3;
+
+    private final File file;
+
+    public TrashJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * 单条修改记录
+     */
+    public static class Entry {
+        private final long sequence;
+        private final byte op;
+        private final TrashItem item; // 仅 OP_ADD
+        private final long itemId;    // 仅 OP_REMOVE
+
+        private Entry(long sequence, byte op, TrashItem item, long itemId) {
+            this.sequence = sequence;
+            this.op = op;
+            this.item = item;
+            this.itemId = itemId;
+        }
+
+        public static Entry add(long sequence, TrashItem item) {
+            return new Entry(sequence, OP_ADD, item, -1);
+        }
+
+        public static Entry remove(long sequence, long id) {
+            return new Entry(sequence, OP_REMOVE, null, id);
+        }
+
+        public static Entry clear(long sequence) {
+            return new Entry(sequence, OP_CLEAR, null, -1);
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public byte getOp() {
+            return op;
+        }
+
+        public TrashItem getItem() {
+            return item;
+        }
+
+        public long getItemId() {
+            return itemId;
+        }
+    }
+
+    /**
+     * 追加写入一批记录并刷入磁盘，返回写入的字节数
+     */
+    public long append(List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        for (Entry entry : entries) {
+            out.writeLong(entry.sequence);
+            out.writeByte(entry.op);
+            switch (entry.op) {
+                case OP_ADD -> {
+                    byte[] bytes = TrashItemCodec.encode(entry.item);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                case OP_REMOVE -> out.writeLong(entry.itemId);
+                default -> {
+                    // OP_CLEAR 无内容
+                }
+            }
+        }
+        out.flush();
+
+        try (FileOutputStream fileOut = new FileOutputStream(file, true)) {
+            buffer.writeTo(fileOut);
+            fileOut.getFD().sync();
+        }
+        return buffer.size();
+    }
+
+    /**
+     * 按顺序读取全部记录；文件末尾不完整的记录（写入中途崩溃）会被忽略，
+     * 长度字段无效的记录视为同样的损坏，从该处起停止读取
+     */
+    public int replay(Consumer<Entry> consumer) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+
+        int count = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                Entry entry;
+                try {
+                    long sequence = in.readLong();
+                    byte op = in.readByte();
+                    switch (op) {
+                        case OP_ADD -> {
+                            entry = Entry.add(sequence, TrashItemCodec.decode(TrashItemCodec.readBlock(in)));
+                        }
+                        case OP_REMOVE -> entry = Entry.remove(sequence, in.readLong());
+                        case OP_CLEAR -> entry = Entry.clear(sequence);
+                        default -> throw new IOException("未知的日志操作类型: " + op);
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                consumer.accept(entry);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 清空日志（快照写入完成后调用）
+     */
+    public void truncate() throws IOException {
+        try (FileOutputStream fileOut = new FileOutputStream(file, false)) {
+            fileOut.getFD().sync();
+        }
+    }
+
+    public long size() {
+        return file.exists() ? file.length() : 0;
+    }
+
+    public boolean exists() {
+        return file.exists();
+    }
+
+    public void delete() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+}
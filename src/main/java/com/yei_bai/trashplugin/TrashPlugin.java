@@ -65,8 +65,9 @@ public class TrashPlugin extends JavaPlugin {
             messageManager.loadMessages();
 
             getLogger().info("初始化数据管理器...");
-            dataManager = new DataManager(this);
+            dataManager = new DataManager(this, configManager);
             dataManager.loadData();
+            dataManager.startAutoSave();
 
             getLogger().info("初始化经济管理器...");
             economyManager = new EconomyManager(this);
@@ -95,6 +96,10 @@ public class TrashPlugin extends JavaPlugin {
             PlayerEventListener playerEventListener = new PlayerEventListener(sweeperManager, autoRefreshManager);
             pm.registerEvents(playerEventListener, this);
 
+            // 掉落物登记（扫地时只遍历登记的掉落物，不再扫描所有实体）
+            pm.registerEvents(sweeperManager.getItemRegistry(), this);
+            sweeperManager.getItemRegistry().seed();
+
             // 6. 注册命令
             getLogger().info("注册命令...");
             Commands commands = new Commands();
@@ -140,10 +145,12 @@ public class TrashPlugin extends JavaPlugin {
             autoRefreshManager.stop();
         }
 
-        // 保存数据
+        // 保存数据（先停止延迟写入线程，再同步写入最终数据）
         if (dataManager != null) {
             try {
+                dataManager.stopAutoSave();
                 dataManager.saveData();
+                dataManager.closeStore();
                 getLogger().info("✓ 插件数据已保存");
             } catch (Exception e) {
                 getLogger().warning("保存数据时出错: " + e.getMessage());
@@ -0,0 +1,202 @@
+package com.yei_bai.trashplugin;
+
+import org.bukkit.Material;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 公共垃圾桶的不可变快照，由 {@link PublicTrash} 的写者发布
+ * 读取方可以在任意线程上直接使用，无需加锁；快照发布后不会再被修改
+ * 底层是与前后版本共享节点的 {@link PersistentSortedMap}，发布快照不复制物品列表
+ * 另有按材质和按丢弃者UUID的二级索引，筛选后的分页只与匹配数量相关；全部物品按价格、数量排序时直接使用排序索引
+ */
+public final class TrashSnapshot {
+
+    static final TrashSnapshot EMPTY = new TrashSnapshot(PersistentSortedMap.empty(Comparator.naturalOrder()),
+            Collections.emptyMap(), PersistentSortedMap.empty(Comparator.naturalOrder()),
+            PersistentSortedMap.empty(Comparator.naturalOrder()), PersistentSortedMap.empty(Comparator.naturalOrder()),
+            TrashItem::getPrice, 0L);
+
+    private static final int MAX_CACHED_SEARCHES = 64;
+    private static final int MAX_CACHED_SORTS = 64;
+
+    private record ViewKey(TrashView view, TrashSort sort) {
+    }
+
+    /**
+     * 排序后的列表及其来源（搜索结果按引用比较，来源变化时重新排序）
+     */
+    private record Sorted(List<TrashItem> source, List<TrashItem> items) {
+    }
+
+    private final PersistentSortedMap<Long, TrashItem> byId; // ID递增，按ID排序即按加入顺序
+    private final Map<Material, PersistentSortedMap<Long, TrashItem>> byMaterial; // 只读，仅含非空材质
+    private final PersistentSortedMap<UUID, PersistentSortedMap<Long, TrashItem>> byOwner; // 仅含有物品的玩家
+    private final PersistentSortedMap<PublicTrash.SortKey, TrashItem> byPrice;  // 价格从低到高
+    private final PersistentSortedMap<PublicTrash.SortKey, TrashItem> byAmount; // 数量从少到多
+    private final ToDoubleFunction<TrashItem> priceFunction; // 筛选后按价格排序时使用
+    private final long sequence;                             // 快照已包含的最后一条修改记录序号
+    // 在这个快照上执行过的搜索结果，快照不再变化因此结果一直有效；只由写者加入
+    private final Map<String, List<TrashItem>> searchResults = new ConcurrentHashMap<>();
+    // 筛选或搜索结果按价格、数量排序后的完整列表，同一快照上翻页、计数和多个玩家查看时只排序一次
+    private final Map<ViewKey, Sorted> sortedViews = new ConcurrentHashMap<>();
+
+    TrashSnapshot(PersistentSortedMap<Long, TrashItem> byId,
+                  Map<Material, PersistentSortedMap<Long, TrashItem>> byMaterial,
+                  PersistentSortedMap<UUID, PersistentSortedMap<Long, TrashItem>> byOwner,
+                  PersistentSortedMap<PublicTrash.SortKey, TrashItem> byPrice,
+                  PersistentSortedMap<PublicTrash.SortKey, TrashItem> byAmount,
+                  ToDoubleFunction<TrashItem> priceFunction, long sequence) {
+        this.byId = byId;
+        this.byMaterial = byMaterial;
+        this.byOwner = byOwner;
+        this.byPrice = byPrice;
+        this.byAmount = byAmount;
+        this.priceFunction = priceFunction;
+        this.sequence = sequence;
+    }
+
+    /**
+     * 全部物品的只读视图（按加入顺序），不复制
+     */
+    public List<TrashItem> getItems() {
+        return byId.values();
+    }
+
+    /**
+     * 返回指定页的物品，O(log n + 每页数量)
+     */
+    public List<TrashItem> getPage(int page, int itemsPerPage) {
+        return byId.range(page * itemsPerPage, itemsPerPage);
+    }
+
+    /**
+     * 返回筛选范围内的某一页，O(log m + 每页数量)；搜索结果不在快照中，由 {@link DataManager} 处理
+     */
+    public List<TrashItem> getPage(TrashView view, int page, int itemsPerPage) {
+        return getPage(view, TrashSort.OLDEST, page, itemsPerPage);
+    }
+
+    /**
+     * 按排序方式返回筛选范围内的某一页
+     * 按加入先后排序和全部物品按价格、数量排序为 O(log n + 每页数量)；
+     * 筛选后按价格、数量排序时首次为 O(m log m)，同一快照上之后的翻页为 O(每页数量)
+     */
+    public List<TrashItem> getPage(TrashView view, TrashSort sort, int page, int itemsPerPage) {
+        PersistentSortedMap<Long, TrashItem> matches = select(view);
+        if (matches == null) {
+            return List.of();
+        }
+        int from = page * itemsPerPage;
+        boolean all = view.getType() == TrashView.Type.ALL;
+        return switch (sort) {
+            case OLDEST -> matches.range(from, itemsPerPage);
+            case NEWEST -> matches.rangeDescending(from, itemsPerPage);
+            case PRICE -> all ? byPrice.range(from, itemsPerPage) : sortedPage(view, null, matches, sort, from, itemsPerPage);
+            case AMOUNT -> all ? byAmount.rangeDescending(from, itemsPerPage) : sortedPage(view, null, matches, sort, from, itemsPerPage);
+        };
+    }
+
+    /**
+     * 对搜索结果排序后取一页，排序结果按 (搜索, 排序方式) 缓存在快照中
+     */
+    public List<TrashItem> sortedPage(TrashView view, List<TrashItem> results, TrashSort sort, int from, int count) {
+        return sortedPage(view, results, null, sort, from, count);
+    }
+
+    /**
+     * 对不在排序索引中的物品（筛选或搜索结果）排序后取一页
+     *
+     * @param source  搜索结果，筛选时为 null
+     * @param matches 筛选范围内的物品，搜索时为 null
+     */
+    private List<TrashItem> sortedPage(TrashView view, List<TrashItem> source, PersistentSortedMap<Long, TrashItem> matches,
+                                       TrashSort sort, int from, int count) {
+        ViewKey key = new ViewKey(view, sort);
+        Sorted cached = sortedViews.get(key);
+        List<TrashItem> sorted;
+        if (cached != null && cached.source() == source) {
+            sorted = cached.items();
+        } else {
+            List<TrashItem> copy = new ArrayList<>(source != null ? source : matches.values());
+            copy.sort(sort.comparator(priceFunction));
+            sorted = Collections.unmodifiableList(copy);
+            if (sortedViews.size() < MAX_CACHED_SORTS) {
+                sortedViews.put(key, new Sorted(source, sorted));
+            }
+        }
+        if (from >= sorted.size()) {
+            return List.of();
+        }
+        return sorted.subList(from, Math.min(from + count, sorted.size()));
+    }
+
+    /**
+     * 在这个快照上执行过的搜索结果，没有时返回 null
+     */
+    public List<TrashItem> getSearchResults(String query) {
+        return searchResults.get(query);
+    }
+
+    /**
+     * 记录搜索结果（在写者线程上调用，须与快照内容一致），缓存已满时不再记录
+     */
+    void cacheSearchResults(String query, List<TrashItem> results) {
+        if (searchResults.size() < MAX_CACHED_SEARCHES) {
+            searchResults.put(query, results);
+        }
+    }
+
+    /**
+     * 筛选范围内的物品数量
+     */
+    public int size(TrashView view) {
+        PersistentSortedMap<Long, TrashItem> matches = select(view);
+        return matches == null ? 0 : matches.size();
+    }
+
+    /**
+     * 某个玩家丢弃的全部物品（只读视图，按加入顺序）
+     */
+    public List<TrashItem> getOwnerItems(UUID ownerId) {
+        PersistentSortedMap<Long, TrashItem> matches = byOwner.get(ownerId);
+        return matches == null ? List.of() : matches.values();
+    }
+
+    /**
+     * 当前垃圾桶中出现的所有材质
+     */
+    public Set<Material> getMaterials() {
+        return byMaterial.keySet();
+    }
+
+    /**
+     * 当前垃圾桶中有物品的玩家数量
+     */
+    public int getOwnerCount() {
+        return byOwner.size();
+    }
+
+    public TrashItem get(long id) {
+        return byId.get(id);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    private PersistentSortedMap<Long, TrashItem> select(TrashView view) {
+        return switch (view.getType()) {
+            case MATERIAL -> byMaterial.get(view.getMaterial());
+            case OWNER -> byOwner.get(view.getOwnerId());
+            case ALL -> byId;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.yei_bai.trashplugin;
+
+import java.util.Comparator;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 公共垃圾桶界面的排序方式
+ * 全部物品的排序由 {@link PublicTrash} 维护的有序索引直接分页；筛选后的物品数量较少，按比较器排序
+ */
+public enum TrashSort {
+
+    OLDEST("最早丢弃"),
+    NEWEST("最新丢弃"),
+    PRICE("价格从低到高"),
+    AMOUNT("数量从多到少");
+
+    private final String displayName;
+
+    TrashSort(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public TrashSort next() {
+        TrashSort[] values = values();
+        return values[(ordinal() + 1) % values.length];
+    }
+
+    /**
+     * 与对应有序索引一致的比较器（ID随加入顺序递增，相同价格或数量时按ID排序）
+     */
+    public Comparator<TrashItem> comparator(ToDoubleFunction<TrashItem> priceFunction) {
+        Comparator<TrashItem> byId = Comparator.comparingLong(TrashItem::getId);
+        return switch (this) {
+            case OLDEST -> byId;
+            case NEWEST -> byId.reversed();
+            case PRICE -> Comparator.comparingDouble(priceFunction).thenComparing(byId);
+            case AMOUNT -> Comparator.comparingInt(TrashItem::getAmount).thenComparing(byId).reversed();
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package com.yei_bai.trashplugin;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 公共垃圾桶持久化后端
+ * 文件后端的物品列表由 {@link DataManager} 载入内存维护，后端只负责加载和按顺序持久化修改记录；
+ * 数据库后端不整表载入，由 {@link SqlTrashStore} 的分页查询直接提供
+ */
+public interface TrashStore {
+
+    /**
+     * 后端名称（用于日志）
+     */
+    String getName();
+
+    /**
+     * 后端中是否已有数据（不存在时由 DataManager 从旧版数据迁移）
+     */
+    boolean exists();
+
+    /**
+     * 按插入顺序加载全部物品到 target，返回最后一条已持久化修改的序号
+     */
+    long load(List<TrashItem> target) throws IOException;
+
+    /**
+     * 按顺序持久化一批修改记录
+     */
+    void append(List<TrashJournal.Entry> entries) throws IOException;
+
+    /**
+     * 是否需要用完整快照替换已有数据（例如日志过长）
+     */
+    boolean needsCompaction();
+
+    /**
+     * 用完整快照替换后端中的全部数据，sequence 为快照对应的最后一条修改序号
+     */
+    void compact(List<TrashItem> snapshot, long sequence) throws IOException;
+
+    /**
+     * 释放文件句柄或数据库连接
+     */
+    void close();
+}
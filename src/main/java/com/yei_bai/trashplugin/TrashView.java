@@ -0,0 +1,91 @@
+package com.yei_bai.trashplugin;
+
+import org.bukkit.Material;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * 玩家在公共垃圾桶界面中看到的物品范围：全部、某种材质、某个丢弃者的物品或搜索结果
+ * 不可变；前三种由 {@link TrashSnapshot} 解析到对应的索引上分页，搜索由 {@link DataManager} 交给搜索索引
+ */
+public final class TrashView {
+
+    public enum Type {
+        ALL,
+        MATERIAL,
+        OWNER,
+        SEARCH
+    }
+
+    public static final TrashView ALL = new TrashView(Type.ALL, null, null, null);
+
+    private final Type type;
+    private final Material material;
+    private final UUID ownerId;
+    private final String text; // 丢弃者名称（仅用于显示）或搜索内容
+
+    private TrashView(Type type, Material material, UUID ownerId, String text) {
+        this.type = type;
+        this.material = material;
+        this.ownerId = ownerId;
+        this.text = text;
+    }
+
+    public static TrashView material(Material material) {
+        return material == null ? ALL : new TrashView(Type.MATERIAL, material, null, null);
+    }
+
+    public static TrashView owner(UUID ownerId, String ownerName) {
+        return ownerId == null ? ALL : new TrashView(Type.OWNER, null, ownerId, ownerName);
+    }
+
+    public static TrashView search(String query) {
+        return query == null || query.isBlank() ? ALL : new TrashView(Type.SEARCH, null, null, query.trim());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Material getMaterial() {
+        return material;
+    }
+
+    public UUID getOwnerId() {
+        return ownerId;
+    }
+
+    public String getQuery() {
+        return type == Type.SEARCH ? text : null;
+    }
+
+    public boolean isOwnedBy(UUID playerId) {
+        return type == Type.OWNER && ownerId.equals(playerId);
+    }
+
+    /**
+     * 标题中显示的筛选说明，不筛选时返回 null
+     */
+    public String getLabel() {
+        return switch (type) {
+            case MATERIAL -> PublicTrashGUI.formatItemName(material);
+            case OWNER -> text + " 的物品";
+            case SEARCH -> "搜索: " + text;
+            default -> null;
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TrashView other)) return false;
+        return type == other.type && material == other.material && Objects.equals(ownerId, other.ownerId)
+                && Objects.equals(getQuery(), other.getQuery());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, material, ownerId, getQuery());
+    }
+}
@@ -0,0 +1,124 @@
+package com.yei_bai.trashplugin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 以 TreeMap 为对照，随机增删后比较内容、按位置查找和分页结果
+ */
+class PersistentSortedMapTest {
+
+    private static final int KEY_RANGE = 500;
+
+    @Test
+    void randomOperationsMatchTreeMap() {
+        Random random = new Random(20240601L);
+        PersistentSortedMap<Integer, String> map = PersistentSortedMap.empty(Comparator.naturalOrder());
+        TreeMap<Integer, String> oracle = new TreeMap<>();
+
+        for (int op = 0; op < 20_000; op++) {
+            int key = random.nextInt(KEY_RANGE);
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key);
+                oracle.remove(key);
+            } else {
+                String value = key + "@" + op; // 覆盖已有键时值也会变化
+                map = map.put(key, value);
+                oracle.put(key, value);
+            }
+
+            assertEquals(oracle.size(), map.size());
+            assertEquals(oracle.get(key), map.get(key));
+            if (op % 100 == 0) {
+                assertMatches(oracle, map, random);
+            }
+        }
+        assertMatches(oracle, map, random);
+    }
+
+    @Test
+    void oldVersionsAreUnchanged() {
+        PersistentSortedMap<Integer, String> map = PersistentSortedMap.empty(Comparator.naturalOrder());
+        for (int i = 0; i < 100; i++) {
+            map = map.put(i, "v" + i);
+        }
+        PersistentSortedMap<Integer, String> before = map;
+        List<String> expected = new ArrayList<>(before.values());
+
+        for (int i = 0; i < 100; i += 2) {
+            map = map.remove(i);
+        }
+        map = map.put(1000, "new");
+
+        assertEquals(100, before.size());
+        assertEquals(expected, new ArrayList<>(before.values()));
+        assertEquals(51, map.size());
+        assertNull(map.get(0));
+        assertEquals("v0", before.get(0));
+    }
+
+    @Test
+    void removingMissingKeyReturnsSameMap() {
+        PersistentSortedMap<Integer, String> map = PersistentSortedMap.<Integer, String>empty(Comparator.naturalOrder())
+                .put(1, "a");
+        assertSame(map, map.remove(2));
+    }
+
+    @Test
+    void fromSortedMatchesIncrementalPuts() {
+        List<Integer> keys = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        PersistentSortedMap<Integer, String> incremental = PersistentSortedMap.empty(Comparator.naturalOrder());
+        for (int i = 0; i < 1000; i += 3) {
+            keys.add(i);
+            values.add("v" + i);
+            incremental = incremental.put(i, "v" + i);
+        }
+
+        PersistentSortedMap<Integer, String> built = PersistentSortedMap.fromSorted(Comparator.naturalOrder(), keys, values);
+        assertEquals(incremental.size(), built.size());
+        assertEquals(new ArrayList<>(incremental.values()), new ArrayList<>(built.values()));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(incremental.get(i), built.get(i));
+        }
+    }
+
+    @Test
+    void rangesOutsideBoundsAreEmpty() {
+        PersistentSortedMap<Integer, String> map = PersistentSortedMap.<Integer, String>empty(Comparator.naturalOrder())
+                .put(1, "a").put(2, "b");
+        assertTrue(map.range(2, 10).isEmpty());
+        assertTrue(map.range(-1, 10).isEmpty());
+        assertTrue(map.range(0, 0).isEmpty());
+        assertTrue(map.rangeDescending(2, 10).isEmpty());
+        assertEquals(List.of("b", "a"), map.rangeDescending(0, 10));
+        assertThrows(IndexOutOfBoundsException.class, () -> map.getAt(2));
+    }
+
+    private static void assertMatches(TreeMap<Integer, String> oracle, PersistentSortedMap<Integer, String> map,
+                                      Random random) {
+        List<String> expected = new ArrayList<>(oracle.values());
+        List<String> descending = new ArrayList<>(expected);
+        Collections.reverse(descending);
+
+        assertEquals(expected, new ArrayList<>(map.values()));
+        for (int key = 0; key < KEY_RANGE; key++) {
+            assertEquals(oracle.get(key), map.get(key));
+            assertEquals(oracle.containsKey(key), map.containsKey(key));
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), map.getAt(i), "getAt(" + i + ")");
+        }
+        for (int i = 0; i < 20 && !expected.isEmpty(); i++) {
+            int from = random.nextInt(expected.size());
+            int count = 1 + random.nextInt(30);
+            int to = Math.min(from + count, expected.size());
+            assertEquals(expected.subList(from, to), map.range(from, count), "range(" + from + ", " + count + ")");
+            assertEquals(descending.subList(from, to), map.rangeDescending(from, count),
+                    "rangeDescending(" + from + ", " + count + ")");
+        }
+    }
+}
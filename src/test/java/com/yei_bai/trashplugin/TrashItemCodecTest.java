@@ -0,0 +1,119 @@
+package com.yei_bai.trashplugin;
+
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 记录编码与快照文件的往返测试（物品字节只原样保存，不需要服务端解码）
+ */
+class TrashItemCodecTest {
+
+    @TempDir
+    Path tempDir;
+
+    static TrashItem item(long id, Material type, int amount, String owner, UUID ownerId, double customPrice) {
+        byte[] itemData = new byte[16 + (int) (id % 7)];
+        Arrays.fill(itemData, (byte) id);
+        TrashItem item = new TrashItem(itemData, type, amount, owner, new Date(1_700_000_000_000L + id), customPrice);
+        item.setId(id);
+        item.setOwnerId(ownerId);
+        return item;
+    }
+
+    static void assertSameItem(TrashItem expected, TrashItem actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertArrayEquals(expected.getItemData(), actual.getItemData());
+        assertEquals(expected.getItemType(), actual.getItemType());
+        assertEquals(expected.getAmount(), actual.getAmount());
+        assertEquals(expected.getOwner(), actual.getOwner());
+        assertEquals(expected.getOwnerId(), actual.getOwnerId());
+        assertEquals(expected.getDiscardTimeMillis(), actual.getDiscardTimeMillis());
+        assertEquals(expected.getCustomPrice(), actual.getCustomPrice());
+    }
+
+    @Test
+    void recordRoundTrip() throws IOException {
+        TrashItem original = item(42, Material.DIAMOND_SWORD, 1, "玩家甲", UUID.randomUUID(), 12.5);
+        assertSameItem(original, TrashItemCodec.decode(TrashItemCodec.encode(original)));
+    }
+
+    @Test
+    void recordRoundTripWithoutOwnerIdOrCustomPrice() throws IOException {
+        TrashItem original = item(7, Material.STONE, 64, "扫地系统", null, -1);
+        assertSameItem(original, TrashItemCodec.decode(TrashItemCodec.encode(original)));
+    }
+
+    @Test
+    void decodeRejectsLengthBeyondRecord() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(0xE1);
+        out.writeLong(1L);
+        out.writeInt(Integer.MAX_VALUE); // 损坏的长度字段，不应尝试分配 2GB
+        out.write(new byte[8]);
+        assertThrows(EOFException.class, () -> TrashItemCodec.decode(buffer.toByteArray()));
+    }
+
+    @Test
+    void decodeRejectsUnknownMarker() {
+        assertThrows(IOException.class, () -> TrashItemCodec.decode(new byte[]{0x00, 0x01}));
+    }
+
+    @Test
+    void snapshotRoundTrip() throws IOException {
+        List<TrashItem> items = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            items.add(item(i, i % 2 == 0 ? Material.DIRT : Material.OAK_LOG, i % 64 + 1, "玩家" + i,
+                    i % 3 == 0 ? null : UUID.randomUUID(), i % 5 == 0 ? i * 1.5 : -1));
+        }
+        // 超过写入缓冲区的单条记录
+        TrashItem large = new TrashItem(new byte[200 * 1024], Material.WRITTEN_BOOK, 1, "作者", new Date(), -1);
+        large.setId(501);
+        items.add(large);
+
+        Path file = tempDir.resolve("trash.dat");
+        TrashItemCodec.writeSnapshot(file, items, items.size(), 1234L);
+
+        List<TrashItem> loaded = new ArrayList<>();
+        TrashItemCodec.Snapshot snapshot = TrashItemCodec.readSnapshot(file, loaded::add);
+        assertEquals(1234L, snapshot.getSequence());
+        assertEquals(items.size(), snapshot.getCount());
+        assertEquals(items.size(), loaded.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertSameItem(items.get(i), loaded.get(i));
+        }
+    }
+
+    @Test
+    void truncatedSnapshotIsReportedAsCorrupt() throws IOException {
+        List<TrashItem> items = List.of(item(1, Material.STONE, 1, "a", null, -1), item(2, Material.STONE, 2, "b", null, -1));
+        Path file = tempDir.resolve("trash.dat");
+        TrashItemCodec.writeSnapshot(file, items, items.size(), 5L);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThrows(IOException.class, () -> TrashItemCodec.readSnapshot(file, item -> { }));
+    }
+
+    @Test
+    void shortFileIsNotASnapshot() throws IOException {
+        Path file = tempDir.resolve("trash.dat");
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> TrashItemCodec.readSnapshot(file, item -> { }));
+    }
+}
@@ -0,0 +1,140 @@
+package com.yei_bai.trashplugin;
+
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static com.yei_bai.trashplugin.TrashItemCodecTest.assertSameItem;
+import static com.yei_bai.trashplugin.TrashItemCodecTest.item;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 修改日志的重放、末尾损坏处理，以及快照合并后的重放规则（与 FileTrashStore#load 相同：跳过序号不大于快照序号的记录）
+ */
+class TrashJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void replayReturnsEntriesInOrder() throws IOException {
+        TrashJournal journal = new TrashJournal(tempDir.resolve("trash.journal").toFile());
+        TrashItem first = item(1, Material.STONE, 3, "a", null, -1);
+        journal.append(List.of(TrashJournal.Entry.add(1, first), TrashJournal.Entry.remove(2, 1),
+                TrashJournal.Entry.clear(3)));
+
+        List<TrashJournal.Entry> entries = new ArrayList<>();
+        assertEquals(3, journal.replay(entries::add));
+        assertEquals(TrashJournal.OP_ADD, entries.get(0).getOp());
+        assertSameItem(first, entries.get(0).getItem());
+        assertEquals(TrashJournal.OP_REMOVE, entries.get(1).getOp());
+        assertEquals(1, entries.get(1).getItemId());
+        assertEquals(TrashJournal.OP_CLEAR, entries.get(2).getOp());
+        assertEquals(List.of(1L, 2L, 3L), entries.stream().map(TrashJournal.Entry::getSequence).toList());
+    }
+
+    @Test
+    void missingJournalReplaysNothing() throws IOException {
+        TrashJournal journal = new TrashJournal(tempDir.resolve("missing.journal").toFile());
+        assertEquals(0, journal.replay(entry -> fail("不应有记录")));
+    }
+
+    @Test
+    void truncatedTailIsIgnored() throws IOException {
+        File file = tempDir.resolve("trash.journal").toFile();
+        TrashJournal journal = new TrashJournal(file);
+        journal.append(List.of(TrashJournal.Entry.add(1, item(1, Material.STONE, 1, "a", null, -1)),
+                TrashJournal.Entry.add(2, item(2, Material.DIRT, 2, "b", null, -1))));
+        long complete = file.length();
+        journal.append(List.of(TrashJournal.Entry.add(3, item(3, Material.SAND, 3, "c", null, -1))));
+
+        // 每个截断位置（含只写了一半的序号、长度字段和物品字节）都只丢弃最后一条
+        long full = file.length();
+        for (long length = full - 1; length > complete; length--) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(length);
+            }
+            List<TrashJournal.Entry> entries = new ArrayList<>();
+            assertEquals(2, journal.replay(entries::add), "截断到 " + length + " 字节");
+            assertEquals(2L, entries.get(1).getSequence());
+        }
+    }
+
+    @Test
+    void corruptLengthStopsReplay() throws IOException {
+        File file = tempDir.resolve("trash.journal").toFile();
+        TrashJournal journal = new TrashJournal(file);
+        journal.append(List.of(TrashJournal.Entry.add(1, item(1, Material.STONE, 1, "a", null, -1))));
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true))) {
+            out.writeLong(2);
+            out.writeByte(TrashJournal.OP_ADD);
+            out.writeInt(Integer.MAX_VALUE); // 损坏的长度字段
+            out.write(new byte[32]);
+        }
+
+        assertEquals(1, journal.replay(entry -> { }));
+    }
+
+    @Test
+    void compactionKeepsStateAndSkipsMergedEntries() throws IOException {
+        Path snapshotFile = tempDir.resolve("trash.dat");
+        TrashJournal journal = new TrashJournal(tempDir.resolve("trash.journal").toFile());
+        journal.append(List.of(
+                TrashJournal.Entry.add(1, item(1, Material.STONE, 1, "a", null, -1)),
+                TrashJournal.Entry.add(2, item(2, Material.DIRT, 2, "b", null, 4.0)),
+                TrashJournal.Entry.add(3, item(3, Material.SAND, 3, "c", null, -1)),
+                TrashJournal.Entry.remove(4, 2)));
+        LinkedHashMap<Long, TrashItem> beforeCompaction = load(snapshotFile, journal);
+        assertEquals(List.of(1L, 3L), new ArrayList<>(beforeCompaction.keySet()));
+
+        // 合并：先写快照，清空日志之前崩溃，重启后已合并的记录不能重复生效
+        TrashItemCodec.writeSnapshot(snapshotFile, beforeCompaction.values(), beforeCompaction.size(), 4L);
+        journal.append(List.of(TrashJournal.Entry.add(5, item(5, Material.GRAVEL, 5, "d", null, -1))));
+        LinkedHashMap<Long, TrashItem> afterCrash = load(snapshotFile, journal);
+        assertEquals(List.of(1L, 3L, 5L), new ArrayList<>(afterCrash.keySet()));
+
+        // 完成合并后日志为空，状态完全来自快照
+        TrashItemCodec.writeSnapshot(snapshotFile, afterCrash.values(), afterCrash.size(), 5L);
+        journal.truncate();
+        assertEquals(0, journal.size());
+        LinkedHashMap<Long, TrashItem> compacted = load(snapshotFile, journal);
+        assertEquals(new ArrayList<>(afterCrash.keySet()), new ArrayList<>(compacted.keySet()));
+        for (TrashItem item : afterCrash.values()) {
+            assertSameItem(item, compacted.get(item.getId()));
+        }
+
+        // 合并后的新修改照常重放
+        journal.append(List.of(TrashJournal.Entry.clear(6), TrashJournal.Entry.add(7, item(8, Material.STONE, 1, "e", null, -1))));
+        assertEquals(List.of(8L), new ArrayList<>(load(snapshotFile, journal).keySet()));
+    }
+
+    private static LinkedHashMap<Long, TrashItem> load(Path snapshotFile, TrashJournal journal) throws IOException {
+        LinkedHashMap<Long, TrashItem> items = new LinkedHashMap<>();
+        long snapshotSequence = 0L;
+        if (snapshotFile.toFile().exists()) {
+            snapshotSequence = TrashItemCodec.readSnapshot(snapshotFile, item -> items.put(item.getId(), item)).getSequence();
+        }
+        long baseSequence = snapshotSequence;
+        journal.replay(entry -> {
+            if (entry.getSequence() <= baseSequence) {
+                return;
+            }
+            switch (entry.getOp()) {
+                case TrashJournal.OP_ADD -> items.put(entry.getItem().getId(), entry.getItem());
+                case TrashJournal.OP_REMOVE -> items.remove(entry.getItemId());
+                case TrashJournal.OP_CLEAR -> items.clear();
+            }
+        });
+        return items;
+    }
+}